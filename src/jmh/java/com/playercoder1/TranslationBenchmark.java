@@ -0,0 +1,205 @@
+package com.playercoder1;
+
+import net.runelite.client.util.Text;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hot translation paths against the real dictionaries. Run with {@code ./gradlew jmh}, which
+ * enables the GC profiler so every result also reports bytes allocated per operation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TranslationBenchmark
+{
+    private static final String[] WIDGET_TEXT = {
+            "<col=ff9040>Shark</col>",
+            "<col=ffffff>Prayer potion(4)</col>",
+            "Rune platebody",
+            "<col=ff9040>Super restore(3)</col>",
+            "Lobster",
+            "<col=ff0000>Not in any dictionary</col>",
+            "<br>Coins<br>",
+            "Bank of Gielinor"
+    };
+
+    private static final String[] ITEM_NAMES = {
+            "Prayer potion(4)",
+            "Prayer potion(1)",
+            "Super restore(3)",
+            "<col=ff9040>Shark</col>",
+            "Rune platebody",
+            "Coins",
+            "Lobster",
+            "Nothing to see here"
+    };
+
+    private static final String[] NPC_NAMES = {
+            "Goblin",
+            "<col=ffff00>Man</col>",
+            "Guard",
+            "Hans",
+            "Cook",
+            "Banker",
+            "Unknown visitor",
+            "<col=ffff00>Goblin</col>"
+    };
+
+    private static final String[] NPC_TARGETS = {
+            "<col=ffff00>Goblin<col=ff00>  (level-2)",
+            "<col=ffff00>Man<col=ff00>  (level-2)",
+            "<col=ffff00>Guard<col=ff00>  (level-21)",
+            "<col=ffff00>Hans",
+            "<col=ffff00>Cook",
+            "<col=ffff00>Banker",
+            "<col=ffff00>Unknown visitor<col=ff00>  (level-13)",
+            "<col=ffff00>Goblin<col=ff00>  (level-5)"
+    };
+
+    private static final String[] OPTIONS = {
+            "Walk here",
+            "Talk-to",
+            "Attack",
+            "Take",
+            "Examine",
+            "Trade with",
+            "Cancel",
+            "Pickpocket"
+    };
+
+    private static final String[] DIALOG_LINES = {
+            "Hello there.",
+            "You get 25 coins.",
+            "You catch some Shrimps.",
+            "Your Bronze pickaxe has broken.",
+            "Would you like to buy something?",
+            "Talk to Hans in Lumbridge.",
+            "You have 3 items left.",
+            "This line has no translation at all."
+    };
+
+    private static final String[] TAGGED_ORIGINALS = {
+            "<col=ffff00>Goblin</col>",
+            "<col=ff9040><u>Shark</u></col>",
+            "Plain text",
+            "<col=ffffff>Click here to continue</col>",
+            "<img=1>Player name",
+            "<col=0000ff>Hello there.<br>How are you?</col>",
+            "<str>Cook's Assistant</str>",
+            "<col=ff0000>Warning</col> text"
+    };
+
+    private int cursor;
+    private final TagEnvelope envelope = new TagEnvelope();
+    private byte[] itemFile;
+    private PhraseSegmenter segmenter;
+
+    @Setup(Level.Trial)
+    public void loadDictionaries() throws IOException
+    {
+        final TranslationStrings strings = new TranslationStrings();
+        FrenchItemTranslations.init(strings);
+        FrenchNpcTranslations.init(strings);
+        FrenchQuestTranslations.init(strings);
+        FrenchDialogTranslations.init(strings);
+        FrenchMenuTranslations.init(strings);
+        segmenter = PhraseSegmenter.of(FrenchNpcTranslations.dictionary(), FrenchItemTranslations.dictionary());
+
+        try (InputStream in = TranslationBenchmark.class.getClassLoader().getResourceAsStream(FrenchItemTranslations.RESOURCE))
+        {
+            itemFile = in.readAllBytes();
+        }
+    }
+
+    private String next(String[] inputs)
+    {
+        cursor = (cursor + 1) & (inputs.length - 1);
+        return inputs[cursor];
+    }
+
+    @Benchmark
+    public String translateDialog()
+    {
+        return FrenchDialogTranslations.translateDialog(next(DIALOG_LINES));
+    }
+
+    @Benchmark
+    public String translateItemName()
+    {
+        return FrenchItemTranslations.translateItemName(next(ITEM_NAMES));
+    }
+
+    @Benchmark
+    public String translateWidgetItemText()
+    {
+        return FrenchItemTranslations.translateItemName(TranslationFileLoader.visibleText(next(WIDGET_TEXT)));
+    }
+
+    @Benchmark
+    public String segmentWidgetText()
+    {
+        return segmenter.translate(next(WIDGET_TEXT), true, true);
+    }
+
+    @Benchmark
+    public String translateNpcName()
+    {
+        return FrenchNpcTranslations.translateNpcName(next(NPC_NAMES));
+    }
+
+    @Benchmark
+    public String translateNpcMenuTarget()
+    {
+        String base = FrenchTranslationPlugin.stripCombatLevelSuffix(Text.removeTags(next(NPC_TARGETS)));
+        return FrenchNpcTranslations.translateNpcName(base);
+    }
+
+    @Benchmark
+    public String translateOption()
+    {
+        return FrenchMenuTranslations.translateOption(next(OPTIONS));
+    }
+
+    @Benchmark
+    public String normKey()
+    {
+        return TranslationFileLoader.normKey(next(WIDGET_TEXT));
+    }
+
+    @Benchmark
+    public int normalize()
+    {
+        return TranslationFileLoader.normalize(next(WIDGET_TEXT)).hash();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int parseItemFile() throws IOException
+    {
+        return TranslationFileLoader.readPipeSeparated(new ByteArrayInputStream(itemFile), new TranslationDictionary.Builder());
+    }
+
+    @Benchmark
+    public String wrapTagEnvelope()
+    {
+        return envelope.wrap(next(TAGGED_ORIGINALS), "Remplacement");
+    }
+}
@@ -0,0 +1,103 @@
+package com.playercoder1;
+
+import net.runelite.api.MessageNode;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Game and spam chat messages ("You catch some shrimps.", "Your Bronze pickaxe has
+ * broken."), translated through the dialog lines and rules. Messages are queued as they
+ * arrive and translated together once the burst is over, so the chatbox is redrawn once
+ * per burst rather than once per message. Skilling spam repeats the same few lines, so
+ * results, including misses, are kept in an LRU cache keyed by the raw message.
+ * Only used from the client thread.
+ */
+final class ChatMessageTranslator
+{
+    private static final int CACHE_SIZE = 512;
+
+    // Identity sentinel for "no translation"; never handed out.
+    private static final String NONE = new String("");
+
+    private final TagEnvelope envelope;
+    private final List<MessageNode> pending = new ArrayList<>();
+    private final Map<String, String> cache = new LinkedHashMap<String, String>(CACHE_SIZE, 0.75f, true)
+    {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest)
+        {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    ChatMessageTranslator(TagEnvelope envelope)
+    {
+        this.envelope = envelope;
+    }
+
+    /**
+     * Queues a message and returns true when it starts a new burst, in which case the
+     * caller has to schedule {@link #drain()}.
+     */
+    boolean queue(MessageNode node)
+    {
+        pending.add(node);
+        return pending.size() == 1;
+    }
+
+    /**
+     * Translates every queued message and returns whether any of them changed.
+     */
+    boolean drain()
+    {
+        boolean changed = false;
+        for (MessageNode node : pending)
+        {
+            String fr = translate(node.getValue());
+            if (fr != null)
+            {
+                node.setValue(fr);
+                changed = true;
+            }
+        }
+        pending.clear();
+        return changed;
+    }
+
+    /**
+     * Drops the queued messages without translating them.
+     */
+    void discardPending()
+    {
+        pending.clear();
+    }
+
+    String translate(String raw)
+    {
+        if (raw == null || raw.isEmpty())
+        {
+            return null;
+        }
+
+        String cached = cache.get(raw);
+        if (TranslationMetrics.enabled)
+        {
+            TranslationMetrics.count(cached != null, TranslationMetrics.Counter.CHAT_CACHE_HIT, TranslationMetrics.Counter.CHAT_CACHE_MISS);
+        }
+        if (cached == null)
+        {
+            String fr = FrenchDialogTranslations.translateDialog(raw);
+            cached = fr != null ? envelope.wrap(raw, fr) : NONE;
+            cache.put(raw, cached);
+        }
+        return cached == NONE ? null : cached;
+    }
+
+    void clear()
+    {
+        cache.clear();
+    }
+}
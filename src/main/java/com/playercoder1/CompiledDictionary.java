@@ -0,0 +1,198 @@
+package com.playercoder1;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary form of a translation file, produced at build time by {@link DictionaryCompiler}.
+ *
+ * <pre>
+ * int    magic, version
+ * int    entry count, index size, key arena length, value pool length (chars)
+ * char[] key arena: every normalized key back to back, sorted
+ * int[]  per entry: end offset of its key in the arena
+ * char[] value pool: every distinct value once
+ * int[]  per entry: value offset, value length, key hash
+ * int[]  hash index, laid out exactly as {@link TranslationDictionary} probes it
+ * int    template rule count, then per rule the English and French template parts
+ * </pre>
+ */
+final class CompiledDictionary
+{
+    static final String EXTENSION = ".dict";
+
+    private static final int MAGIC = 0x46524443;
+    private static final int VERSION = 2;
+
+    static final class Contents
+    {
+        final TranslationDictionary dictionary;
+        final List<FrenchDialogTranslations.TemplateRule> templates;
+
+        private Contents(TranslationDictionary dictionary, List<FrenchDialogTranslations.TemplateRule> templates)
+        {
+            this.dictionary = dictionary;
+            this.templates = templates;
+        }
+    }
+
+    private CompiledDictionary() {}
+
+    static void write(OutputStream os, TranslationDictionary dict, List<FrenchDialogTranslations.TemplateRule> templates) throws IOException
+    {
+        final int n = dict.size();
+
+        StringBuilder keys = new StringBuilder();
+        StringBuilder pool = new StringBuilder();
+        Map<String, Integer> valueOffsets = new HashMap<>();
+        int[] keyEnds = new int[n];
+        int[] entries = new int[n * 3];
+        int[] hashes = new int[n];
+
+        for (int i = 0; i < n; i++)
+        {
+            keys.append(dict.keyAt(i));
+            keyEnds[i] = keys.length();
+
+            String value = dict.valueAt(i);
+            Integer valueOffset = valueOffsets.get(value);
+            if (valueOffset == null)
+            {
+                valueOffset = pool.length();
+                valueOffsets.put(value, valueOffset);
+                pool.append(value);
+            }
+            entries[i * 3] = valueOffset;
+            entries[i * 3 + 1] = value.length();
+            entries[i * 3 + 2] = dict.hashAt(i);
+            hashes[i] = dict.hashAt(i);
+        }
+
+        int[] index = TranslationDictionary.buildIndex(hashes, n, TranslationDictionary.indexCapacity(n));
+
+        DataOutputStream out = new DataOutputStream(os);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(n);
+        out.writeInt(index.length);
+        out.writeInt(keys.length());
+        out.writeInt(pool.length());
+        out.writeChars(keys.toString());
+        for (int v : keyEnds)
+        {
+            out.writeInt(v);
+        }
+        out.writeChars(pool.toString());
+        for (int v : entries)
+        {
+            out.writeInt(v);
+        }
+        for (int v : index)
+        {
+            out.writeInt(v);
+        }
+
+        out.writeInt(templates.size());
+        for (FrenchDialogTranslations.TemplateRule t : templates)
+        {
+            writeParts(out, t.en);
+            writeParts(out, t.fr);
+        }
+        out.flush();
+    }
+
+    /**
+     * Reads a compiled dictionary whose values are the instances in {@code strings}.
+     */
+    static Contents read(byte[] data, TranslationStrings strings) throws IOException
+    {
+        ByteBuffer buf = ByteBuffer.wrap(data);
+        if (buf.getInt() != MAGIC || buf.getInt() != VERSION)
+        {
+            throw new IOException("Not a compiled dictionary or unsupported version");
+        }
+
+        final int n = buf.getInt();
+        final int indexSize = buf.getInt();
+        final int keyLength = buf.getInt();
+        final int poolLength = buf.getInt();
+
+        char[] keyChars = readChars(buf, keyLength);
+
+        int[] keyOffsets = new int[n + 1];
+        buf.asIntBuffer().get(keyOffsets, 1, n);
+        buf.position(buf.position() + n * 4);
+
+        char[] pool = readChars(buf, poolLength);
+
+        String[] values = new String[n];
+        int[] hashes = new int[n];
+        Map<Integer, String> sharedValues = new HashMap<>();
+
+        for (int i = 0; i < n; i++)
+        {
+            int valueOffset = buf.getInt();
+            int valueLength = buf.getInt();
+
+            values[i] = sharedValues.computeIfAbsent(valueOffset, off -> strings.canonical(new String(pool, off, valueLength)));
+            hashes[i] = buf.getInt();
+        }
+
+        int[] index = new int[indexSize];
+        buf.asIntBuffer().get(index);
+        buf.position(buf.position() + indexSize * 4);
+
+        int ruleCount = buf.getInt();
+        List<FrenchDialogTranslations.TemplateRule> templates = new ArrayList<>(ruleCount);
+        for (int i = 0; i < ruleCount; i++)
+        {
+            FrenchDialogTranslations.ParseResult en = readParts(buf);
+            FrenchDialogTranslations.ParseResult fr = readParts(buf);
+            templates.add(new FrenchDialogTranslations.TemplateRule(en, fr));
+        }
+
+        return new Contents(new TranslationDictionary(keyChars, keyOffsets, hashes, values, index), templates);
+    }
+
+    private static char[] readChars(ByteBuffer buf, int length)
+    {
+        char[] chars = new char[length];
+        buf.asCharBuffer().get(chars);
+        buf.position(buf.position() + length * 2);
+        return chars;
+    }
+
+    private static void writeParts(DataOutputStream out, FrenchDialogTranslations.ParseResult template) throws IOException
+    {
+        out.writeInt(template.parts.size());
+        for (FrenchDialogTranslations.TemplatePart p : template.parts)
+        {
+            out.writeBoolean(p.isLiteral);
+            out.writeInt(p.text.length());
+            out.writeChars(p.text);
+        }
+    }
+
+    private static FrenchDialogTranslations.ParseResult readParts(ByteBuffer buf)
+    {
+        int count = buf.getInt();
+        List<FrenchDialogTranslations.TemplatePart> parts = new ArrayList<>(count);
+        for (int i = 0; i < count; i++)
+        {
+            boolean literal = buf.get() != 0;
+            char[] text = new char[buf.getInt()];
+            for (int c = 0; c < text.length; c++)
+            {
+                text[c] = buf.getChar();
+            }
+            parts.add(new FrenchDialogTranslations.TemplatePart(literal, new String(text)));
+        }
+        return new FrenchDialogTranslations.ParseResult(parts);
+    }
+}
@@ -0,0 +1,532 @@
+package com.playercoder1;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * All templated dialog rules compiled into one automaton. The literal text each rule starts
+ * with is merged into a shared character trie, and the rest of every rule (placeholders,
+ * optional plural "s", later literals) is compiled into a small instruction program.
+ * Matching simulates every live thread in lockstep, one input symbol at a time, so there is
+ * no backtracking and the running time is linear in the length of the text.
+ * Text is compared case-insensitively and every whitespace run counts as a single space.
+ */
+final class DialogRuleMatcher
+{
+    private static final int OP_CHAR = 0;
+    private static final int OP_ANY = 1;
+    private static final int OP_SPLIT = 2;
+    private static final int OP_SAVE = 3;
+    private static final int OP_TRIE = 4;
+    private static final int OP_MATCH = 5;
+
+    private static final int ROOT = 0;
+
+    private final int[] op;
+    private final int[] arg;
+    private final int[] next;
+    private final int[][] targets;
+
+    private final char[][] trieChars;
+    private final int[][] trieChildren;
+
+    private final int slotCount;
+
+    private final ThreadLocal<Scratch> scratch;
+
+    static final class Match
+    {
+        final int rule;
+        private final int[] slots;
+
+        private Match(int rule, int[] slots)
+        {
+            this.rule = rule;
+            this.slots = slots;
+        }
+
+        int start(int placeholder)
+        {
+            return slots[placeholder * 2];
+        }
+
+        int end(int placeholder)
+        {
+            return slots[placeholder * 2 + 1];
+        }
+    }
+
+    private DialogRuleMatcher(Builder b)
+    {
+        int n = b.op.size();
+        op = new int[n];
+        arg = new int[n];
+        next = new int[n];
+        targets = new int[n][];
+        for (int i = 0; i < n; i++)
+        {
+            op[i] = b.op.get(i);
+            arg[i] = b.arg.get(i);
+            next[i] = b.next.get(i);
+            targets[i] = b.targets.get(i);
+        }
+
+        int nodes = b.trieChildren.size();
+        trieChars = new char[nodes][];
+        trieChildren = new int[nodes][];
+        for (int t = 0; t < nodes; t++)
+        {
+            TreeMap<Character, Integer> kids = b.trieChildren.get(t);
+            trieChars[t] = new char[kids.size()];
+            trieChildren[t] = new int[kids.size()];
+            int k = 0;
+            for (Map.Entry<Character, Integer> e : kids.entrySet())
+            {
+                trieChars[t][k] = e.getKey();
+                trieChildren[t][k] = e.getValue();
+                k++;
+            }
+
+            List<Integer> eps = b.trieEpsilons.get(t);
+            int pc = b.triePc.get(t);
+            targets[pc] = new int[eps.size()];
+            for (int i = 0; i < eps.size(); i++)
+            {
+                targets[pc][i] = eps.get(i);
+            }
+        }
+
+        slotCount = Math.max(2, b.maxPlaceholders * 2);
+        scratch = ThreadLocal.withInitial(() -> new Scratch(op.length));
+    }
+
+    /**
+     * Finds the rule matching the whole of {@code text}. When several rules match, the one
+     * added first wins, and a placeholder captures as few characters as possible.
+     */
+    Match match(String text)
+    {
+        final int len = text.length();
+        final Scratch s = scratch.get();
+
+        s.clist.clear();
+        s.nlist.clear();
+        s.steps = 0;
+
+        int[] empty = new int[slotCount];
+        Arrays.fill(empty, -1);
+
+        s.generation++;
+        addThread(s, s.clist, ROOT, empty, 0);
+
+        int pos = 0;
+        while (pos < len && s.clist.size > 0)
+        {
+            char c = text.charAt(pos);
+            int nextPos = pos + 1;
+            char sym;
+            if (Character.isWhitespace(c))
+            {
+                sym = ' ';
+                while (nextPos < len && Character.isWhitespace(text.charAt(nextPos)))
+                {
+                    nextPos++;
+                }
+            }
+            else
+            {
+                sym = Character.toLowerCase(c);
+            }
+
+            s.generation++;
+            ThreadList cl = s.clist;
+            s.steps += cl.size;
+            for (int i = 0; i < cl.size; i++)
+            {
+                int pc = cl.pcs[i];
+                switch (op[pc])
+                {
+                    case OP_CHAR:
+                        if (arg[pc] == sym)
+                        {
+                            addThread(s, s.nlist, next[pc], cl.slots[i], nextPos);
+                        }
+                        break;
+                    case OP_ANY:
+                        addThread(s, s.nlist, next[pc], cl.slots[i], nextPos);
+                        break;
+                    case OP_TRIE:
+                        int child = trieChild(arg[pc], sym);
+                        if (child >= 0)
+                        {
+                            addThread(s, s.nlist, child, cl.slots[i], nextPos);
+                        }
+                        break;
+                    default:
+                        break;
+                }
+            }
+
+            s.swap();
+            s.nlist.clear();
+            pos = nextPos;
+        }
+
+        if (pos < len)
+        {
+            return null;
+        }
+
+        Match best = null;
+        ThreadList cl = s.clist;
+        for (int i = 0; i < cl.size; i++)
+        {
+            int pc = cl.pcs[i];
+            if (op[pc] == OP_MATCH && (best == null || arg[pc] < best.rule))
+            {
+                best = new Match(arg[pc], cl.slots[i]);
+            }
+        }
+
+        s.clist.clear();
+        return best;
+    }
+
+    /**
+     * Number of thread steps the last {@link #match} on this thread took, i.e. how much of
+     * the rule set had to be scanned before it matched or every thread died.
+     */
+    int lastScanDepth()
+    {
+        return scratch.get().steps;
+    }
+
+    private void addThread(Scratch s, ThreadList list, int pc, int[] slots, int pos)
+    {
+        if (s.marks[pc] == s.generation)
+        {
+            return;
+        }
+        s.marks[pc] = s.generation;
+
+        switch (op[pc])
+        {
+            case OP_SPLIT:
+                for (int t : targets[pc])
+                {
+                    addThread(s, list, t, slots, pos);
+                }
+                return;
+            case OP_SAVE:
+                int[] copy = slots.clone();
+                copy[arg[pc]] = pos;
+                addThread(s, list, next[pc], copy, pos);
+                return;
+            case OP_TRIE:
+                for (int t : targets[pc])
+                {
+                    addThread(s, list, t, slots, pos);
+                }
+                list.add(pc, slots);
+                return;
+            default:
+                list.add(pc, slots);
+        }
+    }
+
+    private int trieChild(int node, char c)
+    {
+        char[] keys = trieChars[node];
+        int lo = 0;
+        int hi = keys.length - 1;
+        while (lo <= hi)
+        {
+            int mid = (lo + hi) >>> 1;
+            char k = keys[mid];
+            if (k < c)
+            {
+                lo = mid + 1;
+            }
+            else if (k > c)
+            {
+                hi = mid - 1;
+            }
+            else
+            {
+                return trieChildren[node][mid];
+            }
+        }
+        return -1;
+    }
+
+    private static final class ThreadList
+    {
+        int[] pcs = new int[64];
+        int[][] slots = new int[64][];
+        int size;
+
+        void add(int pc, int[] s)
+        {
+            if (size == pcs.length)
+            {
+                pcs = Arrays.copyOf(pcs, size * 2);
+                slots = Arrays.copyOf(slots, size * 2);
+            }
+            pcs[size] = pc;
+            slots[size] = s;
+            size++;
+        }
+
+        void clear()
+        {
+            Arrays.fill(slots, 0, size, null);
+            size = 0;
+        }
+    }
+
+    private static final class Scratch
+    {
+        final int[] marks;
+        int generation;
+        int steps;
+        ThreadList clist = new ThreadList();
+        ThreadList nlist = new ThreadList();
+
+        Scratch(int programSize)
+        {
+            marks = new int[programSize];
+        }
+
+        void swap()
+        {
+            ThreadList t = clist;
+            clist = nlist;
+            nlist = t;
+        }
+    }
+
+    static final class Builder
+    {
+        private final List<Integer> op = new ArrayList<>();
+        private final List<Integer> arg = new ArrayList<>();
+        private final List<Integer> next = new ArrayList<>();
+        private final List<int[]> targets = new ArrayList<>();
+
+        private final List<TreeMap<Character, Integer>> trieChildren = new ArrayList<>();
+        private final List<List<Integer>> trieEpsilons = new ArrayList<>();
+        private final List<Integer> triePc = new ArrayList<>();
+
+        private int maxPlaceholders;
+
+        private int ruleCount;
+        private int placeholders;
+        private int trieNode;
+        private boolean inLeadingLiteral;
+        private int pendingPc = -1;
+
+        Builder()
+        {
+            newTrieNode();
+        }
+
+        void beginRule()
+        {
+            placeholders = 0;
+            trieNode = 0;
+            inLeadingLiteral = true;
+            pendingPc = -1;
+        }
+
+        void literal(String text)
+        {
+            int i = 0;
+            while (i < text.length())
+            {
+                if (text.startsWith("(s)", i))
+                {
+                    optionalS();
+                    i += 3;
+                    continue;
+                }
+
+                char c = text.charAt(i);
+                if (Character.isWhitespace(c))
+                {
+                    while (i < text.length() && Character.isWhitespace(text.charAt(i)))
+                    {
+                        i++;
+                    }
+                    character(' ');
+                    continue;
+                }
+
+                character(Character.toLowerCase(c));
+                i++;
+            }
+        }
+
+        void option(List<String> options)
+        {
+            leaveTrie();
+            int slot = placeholders++ * 2;
+            link(emit(OP_SAVE, slot));
+
+            int split = emit(OP_SPLIT, 0);
+            link(split);
+            pendingPc = -1;
+
+            int[] alts = new int[options.size()];
+            List<Integer> ends = new ArrayList<>();
+            for (int a = 0; a < options.size(); a++)
+            {
+                String o = options.get(a);
+                alts[a] = op.size();
+                for (int i = 0; i < o.length(); i++)
+                {
+                    char c = o.charAt(i);
+                    if (Character.isWhitespace(c))
+                    {
+                        while (i + 1 < o.length() && Character.isWhitespace(o.charAt(i + 1)))
+                        {
+                            i++;
+                        }
+                        c = ' ';
+                    }
+                    link(emit(OP_CHAR, Character.toLowerCase(c)));
+                }
+                ends.add(pendingPc);
+                pendingPc = -1;
+            }
+            targets.set(split, alts);
+
+            int save = emit(OP_SAVE, slot + 1);
+            for (int end : ends)
+            {
+                next.set(end, save);
+            }
+            pendingPc = save;
+            maxPlaceholders = Math.max(maxPlaceholders, placeholders);
+        }
+
+        void variable()
+        {
+            leaveTrie();
+            int slot = placeholders++ * 2;
+            link(emit(OP_SAVE, slot));
+
+            int any = emit(OP_ANY, 0);
+            link(any);
+
+            int split = emit(OP_SPLIT, 0);
+            link(split);
+
+            int save = emit(OP_SAVE, slot + 1);
+            targets.set(split, new int[]{save, any});
+            pendingPc = save;
+            maxPlaceholders = Math.max(maxPlaceholders, placeholders);
+        }
+
+        int endRule()
+        {
+            int rule = ruleCount++;
+            int match = emit(OP_MATCH, rule);
+            if (inLeadingLiteral)
+            {
+                trieEpsilons.get(trieNode).add(match);
+                inLeadingLiteral = false;
+            }
+            else
+            {
+                link(match);
+            }
+            return rule;
+        }
+
+        DialogRuleMatcher build()
+        {
+            return new DialogRuleMatcher(this);
+        }
+
+        private void character(char c)
+        {
+            if (inLeadingLiteral)
+            {
+                TreeMap<Character, Integer> kids = trieChildren.get(trieNode);
+                Integer childPc = kids.get(c);
+                if (childPc == null)
+                {
+                    int child = newTrieNode();
+                    childPc = triePc.get(child);
+                    kids.put(c, childPc);
+                }
+                trieNode = arg.get(childPc);
+                return;
+            }
+
+            link(emit(OP_CHAR, c));
+        }
+
+        private void optionalS()
+        {
+            leaveTrie();
+            int split = emit(OP_SPLIT, 0);
+            link(split);
+            int s = emit(OP_CHAR, 's');
+            int join = emit(OP_SPLIT, 0);
+            next.set(s, join);
+            targets.set(split, new int[]{s, join});
+            pendingPc = join;
+        }
+
+        private void leaveTrie()
+        {
+            if (!inLeadingLiteral)
+            {
+                return;
+            }
+
+            // The rest of the rule starts at a pass-through instruction hanging off the trie node.
+            int start = emit(OP_SPLIT, 0);
+            trieEpsilons.get(trieNode).add(start);
+            pendingPc = start;
+            inLeadingLiteral = false;
+        }
+
+        private void link(int pc)
+        {
+            if (pendingPc >= 0)
+            {
+                if (op.get(pendingPc) == OP_SPLIT && targets.get(pendingPc) == null)
+                {
+                    targets.set(pendingPc, new int[]{pc});
+                }
+                else
+                {
+                    next.set(pendingPc, pc);
+                }
+            }
+            pendingPc = pc;
+        }
+
+        private int newTrieNode()
+        {
+            int node = trieChildren.size();
+            trieChildren.add(new TreeMap<>());
+            trieEpsilons.add(new ArrayList<>());
+            triePc.add(emit(OP_TRIE, node));
+            return node;
+        }
+
+        private int emit(int opcode, int argument)
+        {
+            op.add(opcode);
+            arg.add(argument);
+            next.add(-1);
+            targets.add(null);
+            return op.size() - 1;
+        }
+    }
+}
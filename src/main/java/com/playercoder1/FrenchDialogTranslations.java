@@ -2,35 +2,95 @@ package com.playercoder1;
 
 import lombok.extern.slf4j.Slf4j;
 
-import java.io.BufferedReader;
+import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 @Slf4j
 public final class FrenchDialogTranslations
 {
     private FrenchDialogTranslations() {}
 
-    private static final String RESOURCE = "dialog_french.txt";
+    static final String RESOURCE = "dialog_french.txt";
 
-    private static final Map<String, String> EXACT = new HashMap<>();
-    private static final Map<String, List<Rule>> RULES_BY_PREFIX = new HashMap<>();
+    private static volatile Snapshot snapshot;
 
-    private static volatile boolean loaded = false;
+    // bundled translations, kept so overrides can be re-applied on top of them
+    private static TranslationDictionary baseExact;
+    private static List<TemplateRule> baseTemplates;
 
-    public static void init()
+    private static final class Snapshot
     {
-        ensureLoaded();
+        final TranslationDictionary exact;
+        final List<Rule> rules;
+        final DialogRuleMatcher matcher;
+
+        Snapshot(TranslationDictionary exact, List<Rule> rules, DialogRuleMatcher matcher)
+        {
+            this.exact = exact;
+            this.rules = rules;
+            this.matcher = matcher;
+        }
+    }
+
+    static void init(TranslationStrings strings)
+    {
+        if (snapshot != null)
+        {
+            return;
+        }
+
+        synchronized (FrenchDialogTranslations.class)
+        {
+            if (snapshot != null)
+            {
+                return;
+            }
+
+            long start = System.nanoTime();
+            Snapshot loaded = loadRulesFromResource(strings);
+            if (loaded != null)
+            {
+                snapshot = loaded;
+                log.info("Loaded {} dialog translations from {} in {} ms",
+                        loaded.exact.size() + loaded.rules.size(), RESOURCE, (System.nanoTime() - start) / 1_000_000);
+            }
+            else
+            {
+                log.error("Dialog translations failed to load. Dialogs will not be translated.");
+            }
+        }
+    }
+
+    /**
+     * Swaps in the bundled translations with {@code exact} laid on top and {@code templates}
+     * tried before the bundled templates; empty overrides go back to the bundled ones.
+     */
+    static void applyOverrides(TranslationDictionary exact, List<TemplateRule> templates, TranslationStrings strings)
+    {
+        synchronized (FrenchDialogTranslations.class)
+        {
+            List<TemplateRule> merged = new ArrayList<>(templates);
+            if (baseTemplates != null)
+            {
+                merged.addAll(baseTemplates);
+            }
+
+            TranslationDictionary base = baseExact != null ? baseExact : TranslationDictionary.EMPTY;
+            snapshot = compile(TranslationDictionary.merge(base, exact, strings), merged);
+        }
+    }
+
+    static TranslationDictionary dictionary()
+    {
+        final Snapshot snap = snapshot;
+        return snap != null ? snap.exact : null;
     }
 
     public static String translateDialog(String englishText)
     {
-        ensureLoaded();
-        if (!loaded || englishText == null || englishText.isEmpty())
+        final Snapshot snap = snapshot;
+        if (snap == null || englishText == null || englishText.isEmpty())
         {
             return null;
         }
@@ -41,133 +101,109 @@ public final class FrenchDialogTranslations
             return null;
         }
 
-        final String norm = TranslationFileLoader.normKey(clean);
-
-        String exact = EXACT.get(norm);
+        String exact = snap.exact.get(TranslationFileLoader.normalize(clean));
         if (exact != null)
         {
+            if (TranslationMetrics.enabled)
+            {
+                TranslationMetrics.count(TranslationMetrics.Counter.DIALOG_EXACT_HIT);
+            }
             return exact;
         }
 
-        String prefix = firstWord(norm);
-        List<Rule> rules = RULES_BY_PREFIX.get(prefix);
-        if (rules == null)
+        DialogRuleMatcher.Match m = snap.matcher.match(clean);
+        if (TranslationMetrics.enabled)
         {
-            rules = RULES_BY_PREFIX.get("");
-            if (rules == null)
-            {
-                return null;
-            }
+            TranslationMetrics.RULE_SCAN_DEPTH.record(snap.matcher.lastScanDepth());
+            TranslationMetrics.count(m != null, TranslationMetrics.Counter.DIALOG_RULE_HIT, TranslationMetrics.Counter.DIALOG_MISS);
         }
-
-        for (Rule r : rules)
+        if (m == null)
         {
-            Matcher m = r.pattern.matcher(clean);
-            if (m.matches())
-            {
-                return r.render(m);
-            }
+            return null;
         }
 
-        return null;
+        return snap.rules.get(m.rule).render(clean, m);
     }
 
-    private static void ensureLoaded()
+    private static Snapshot loadRulesFromResource(TranslationStrings strings)
     {
-        if (loaded)
+        TranslationDictionary exact = null;
+        List<TemplateRule> templates = null;
+
+        String compiledName = TranslationFileLoader.compiledResourceName(RESOURCE);
+        InputStream compiled = FrenchDialogTranslations.class.getClassLoader().getResourceAsStream(compiledName);
+        if (compiled != null)
         {
-            return;
+            try (InputStream in = compiled)
+            {
+                CompiledDictionary.Contents contents = CompiledDictionary.read(in.readAllBytes(), strings);
+                exact = contents.dictionary;
+                templates = contents.templates;
+            }
+            catch (Exception e)
+            {
+                log.warn("Failed reading compiled dictionary {}, parsing {} instead", compiledName, RESOURCE, e);
+            }
         }
 
-        synchronized (FrenchDialogTranslations.class)
+        if (exact == null)
         {
-            if (loaded)
+            InputStream in = FrenchDialogTranslations.class.getClassLoader().getResourceAsStream(RESOURCE);
+            if (in == null)
             {
-                return;
+                log.error("Resource not found on classpath: {}", RESOURCE);
+                return null;
             }
 
-            int count = loadRulesFromResource();
-            if (count >= 0)
+            TranslationDictionary.Builder builder = new TranslationDictionary.Builder();
+            templates = new ArrayList<>();
+
+            try (InputStream stream = in)
             {
-                loaded = true;
-                log.info("Loaded {} dialog translations from {}", count, RESOURCE);
+                parseDialogFile(stream, builder, templates);
             }
-            else
+            catch (Exception e)
             {
-                log.error("Dialog translations failed to load. Dialogs will not be translated.");
+                log.error("Failed reading resource {}", RESOURCE, e);
+                return null;
             }
+
+            exact = builder.build(strings);
         }
+
+        baseExact = exact;
+        baseTemplates = templates;
+        return compile(exact, templates);
     }
 
-    private static int loadRulesFromResource()
+    private static Snapshot compile(TranslationDictionary exact, List<TemplateRule> templates)
     {
-        InputStream in = FrenchDialogTranslations.class.getClassLoader().getResourceAsStream(RESOURCE);
-        if (in == null)
+        DialogRuleMatcher.Builder matcher = new DialogRuleMatcher.Builder();
+        List<Rule> rules = new ArrayList<>(templates.size());
+        for (TemplateRule t : templates)
         {
-            log.error("Resource not found on classpath: {}", RESOURCE);
-            return -1;
+            rules.add(Rule.compile(t.en, t.fr, matcher));
         }
 
-        int loadedCount = 0;
-        boolean firstLine = true;
+        return new Snapshot(exact, Collections.unmodifiableList(rules), matcher.build());
+    }
 
-        try (BufferedReader br = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)))
+    static void parseDialogFile(InputStream in, TranslationDictionary.Builder exact, List<TemplateRule> templates) throws IOException
+    {
+        TranslationFileLoader.readPairs(in, (en, fr) ->
         {
-            String line;
-            while ((line = br.readLine()) != null)
+            if (!looksTemplated(en))
             {
-                line = stripBom(line).trim();
-                if (line.isEmpty() || line.startsWith("#"))
-                {
-                    continue;
-                }
-
-                if (firstLine && line.equalsIgnoreCase("english|french"))
-                {
-                    firstLine = false;
-                    continue;
-                }
-                firstLine = false;
-
-                int sep = line.indexOf('|');
-                if (sep <= 0 || sep >= line.length() - 1)
-                {
-                    continue;
-                }
-
-                String en = line.substring(0, sep).trim();
-                String fr = line.substring(sep + 1).trim();
-                if (en.isEmpty() || fr.isEmpty())
-                {
-                    continue;
-                }
-
-                if (!looksTemplated(en))
-                {
-                    EXACT.put(TranslationFileLoader.normKey(en), fr);
-                    loadedCount++;
-                    continue;
-                }
-
-                Rule rule = Rule.compile(en, fr);
-                if (rule != null)
-                {
-                    String prefix = firstWord(rule.prefixKey);
-                    RULES_BY_PREFIX.computeIfAbsent(prefix, k -> new ArrayList<>()).add(rule);
-                    loadedCount++;
-                }
+                exact.put(TranslationFileLoader.normKey(en), fr);
+                return true;
             }
-        }
-        catch (Exception e)
-        {
-            log.error("Failed reading resource {}", RESOURCE, e);
-            return -1;
-        }
 
-        return loadedCount;
+            templates.add(new TemplateRule(parseTemplate(en), parseTemplate(fr)));
+            return true;
+        });
     }
 
-    private static boolean looksTemplated(String s)
+    static boolean looksTemplated(String s)
     {
         if (s == null) return false;
 
@@ -209,56 +245,29 @@ public final class FrenchDialogTranslations
         return false;
     }
 
-    private static String firstWord(String s)
-    {
-        if (s == null) return "";
-        int sp = s.indexOf(' ');
-        return sp > 0 ? s.substring(0, sp) : s;
-    }
-
-    private static String stripBom(String s)
-    {
-        if (s != null && !s.isEmpty() && s.charAt(0) == '\uFEFF')
-        {
-            return s.substring(1);
-        }
-        return s;
-    }
-
     private static final class Rule
     {
-        final String prefixKey;
-        final Pattern pattern;
         final List<EnPlaceholder> enPlaceholders;
         final List<FrPart> frParts;
 
-        private Rule(String prefixKey, Pattern pattern, List<EnPlaceholder> enPlaceholders, List<FrPart> frParts)
+        private Rule(List<EnPlaceholder> enPlaceholders, List<FrPart> frParts)
         {
-            this.prefixKey = prefixKey;
-            this.pattern = pattern;
             this.enPlaceholders = enPlaceholders;
             this.frParts = frParts;
         }
 
-        static Rule compile(String enTemplate, String frTemplate)
+        static Rule compile(ParseResult en, ParseResult fr, DialogRuleMatcher.Builder rules)
         {
-            ParseResult en = parseTemplate(enTemplate);
-            ParseResult fr = parseTemplate(frTemplate);
-            if (en == null || fr == null)
-            {
-                return null;
-            }
-
-            StringBuilder re = new StringBuilder("^");
-            int groupIndex = 1;
-
             List<EnPlaceholder> placeholders = new ArrayList<>();
+            int placeholderIndex = 0;
+
+            rules.beginRule();
 
             for (TemplatePart p : en.parts)
             {
                 if (p.isLiteral)
                 {
-                    re.append(literalToRegex(p.text));
+                    rules.literal(p.text);
                 }
                 else
                 {
@@ -266,43 +275,36 @@ public final class FrenchDialogTranslations
 
                     if (token.contains("/"))
                     {
-                        String[] opts = token.split("/");
                         List<String> options = new ArrayList<>();
-                        StringBuilder group = new StringBuilder("(");
 
-                        for (String o : opts)
+                        for (String o : token.split("/"))
                         {
                             String opt = o.trim();
                             if (opt.isEmpty()) continue;
                             options.add(opt);
-                            if (group.length() > 1) group.append("|");
-                            group.append(Pattern.quote(opt));
                         }
-                        group.append(")");
 
                         if (options.isEmpty())
                         {
-                            re.append("(.+?)");
-                            placeholders.add(EnPlaceholder.var(groupIndex++));
+                            rules.variable();
+                            placeholders.add(EnPlaceholder.var(placeholderIndex++));
                         }
                         else
                         {
-                            re.append(group);
-                            placeholders.add(EnPlaceholder.option(groupIndex++, options));
+                            rules.option(options);
+                            placeholders.add(EnPlaceholder.option(placeholderIndex++, options));
                         }
                     }
                     else
                     {
 
-                        re.append("(.+?)");
-                        placeholders.add(EnPlaceholder.var(groupIndex++));
+                        rules.variable();
+                        placeholders.add(EnPlaceholder.var(placeholderIndex++));
                     }
                 }
             }
 
-            re.append("$");
-
-            Pattern pattern = Pattern.compile(re.toString(), Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+            rules.endRule();
 
             List<FrPart> frParts = new ArrayList<>();
             int placeholderCursor = 0;
@@ -332,13 +334,10 @@ public final class FrenchDialogTranslations
                 }
             }
 
-            String prefixKey = TranslationFileLoader.normKey(enTemplate.replaceAll("\\[[^\\]]*\\]", " ")
-                    .replaceAll("\\([^)]*\\)", " ")).trim();
-
-            return new Rule(prefixKey, pattern, placeholders, frParts);
+            return new Rule(placeholders, frParts);
         }
 
-        String render(Matcher m)
+        String render(String clean, DialogRuleMatcher.Match m)
         {
             StringBuilder out = new StringBuilder();
 
@@ -357,8 +356,9 @@ public final class FrenchDialogTranslations
                 }
 
                 EnPlaceholder ph = enPlaceholders.get(idx);
-                String matched = m.group(ph.groupIndex);
-                if (matched == null) matched = "";
+                int start = m.start(ph.placeholderIndex);
+                int end = m.end(ph.placeholderIndex);
+                String matched = start >= 0 && end >= start ? clean.substring(start, end) : "";
 
                 if (ph.type == EnPlaceholderType.OPTION)
                 {
@@ -404,26 +404,26 @@ public final class FrenchDialogTranslations
     private static final class EnPlaceholder
     {
         final EnPlaceholderType type;
-        final int groupIndex;
+        final int placeholderIndex;
         final List<String> optionsLower;
 
-        private EnPlaceholder(EnPlaceholderType type, int groupIndex, List<String> optionsLower)
+        private EnPlaceholder(EnPlaceholderType type, int placeholderIndex, List<String> optionsLower)
         {
             this.type = type;
-            this.groupIndex = groupIndex;
+            this.placeholderIndex = placeholderIndex;
             this.optionsLower = optionsLower;
         }
 
-        static EnPlaceholder option(int groupIndex, List<String> options)
+        static EnPlaceholder option(int placeholderIndex, List<String> options)
         {
             List<String> lower = new ArrayList<>(options.size());
             for (String o : options) lower.add(o.toLowerCase(Locale.ROOT));
-            return new EnPlaceholder(EnPlaceholderType.OPTION, groupIndex, lower);
+            return new EnPlaceholder(EnPlaceholderType.OPTION, placeholderIndex, lower);
         }
 
-        static EnPlaceholder var(int groupIndex)
+        static EnPlaceholder var(int placeholderIndex)
         {
-            return new EnPlaceholder(EnPlaceholderType.VAR, groupIndex, null);
+            return new EnPlaceholder(EnPlaceholderType.VAR, placeholderIndex, null);
         }
 
         int optionIndexOf(String matched)
@@ -457,7 +457,7 @@ public final class FrenchDialogTranslations
         static FrPart placeholder(int idx, List<String> options) { return new FrPart(false, null, idx, options); }
     }
 
-    private static final class TemplatePart
+    static final class TemplatePart
     {
         final boolean isLiteral;
         final String text;
@@ -469,15 +469,26 @@ public final class FrenchDialogTranslations
         }
     }
 
-    private static final class ParseResult
+    static final class ParseResult
     {
         final List<TemplatePart> parts;
         ParseResult(List<TemplatePart> parts) { this.parts = parts; }
     }
 
-    private static ParseResult parseTemplate(String template)
+    static final class TemplateRule
+    {
+        final ParseResult en;
+        final ParseResult fr;
+
+        TemplateRule(ParseResult en, ParseResult fr)
+        {
+            this.en = en;
+            this.fr = fr;
+        }
+    }
+
+    static ParseResult parseTemplate(String template)
     {
-        if (template == null) return null;
 
         List<TemplatePart> parts = new ArrayList<>();
         int i = 0;
@@ -541,55 +552,4 @@ public final class FrenchDialogTranslations
 
         return new ParseResult(parts);
     }
-
-    private static String literalToRegex(String literal)
-    {
-        if (literal == null || literal.isEmpty()) return "";
-
-        String s = literal;
-        StringBuilder re = new StringBuilder();
-        StringBuilder chunk = new StringBuilder();
-        int i = 0;
-
-        while (i < s.length())
-        {
-            if (s.startsWith("(s)", i))
-            {
-                if (chunk.length() > 0)
-                {
-                    re.append(Pattern.quote(chunk.toString()));
-                    chunk.setLength(0);
-                }
-                re.append("(?:s)?");
-                i += 3;
-                continue;
-            }
-
-            char ch = s.charAt(i);
-
-            if (Character.isWhitespace(ch))
-            {
-                if (chunk.length() > 0)
-                {
-                    re.append(Pattern.quote(chunk.toString()));
-                    chunk.setLength(0);
-                }
-
-                while (i < s.length() && Character.isWhitespace(s.charAt(i))) i++;
-                re.append("\\s+");
-                continue;
-            }
-
-            chunk.append(ch);
-            i++;
-        }
-
-        if (chunk.length() > 0)
-        {
-            re.append(Pattern.quote(chunk.toString()));
-        }
-
-        return re.toString();
-    }
 }
-
@@ -2,106 +2,160 @@ package com.playercoder1;
 
 import com.google.common.base.Strings;
 import lombok.extern.slf4j.Slf4j;
-import net.runelite.client.util.Text;
-
-import java.util.HashMap;
-import java.util.Locale;
-import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 @Slf4j
 public final class FrenchItemTranslations
 {
     private FrenchItemTranslations() {}
 
-    private static final String RESOURCE = "item_french.txt";
-    private static final Map<String, String> MAP = new HashMap<>();
-    private static volatile boolean loaded = false;
+    static final String RESOURCE = "item_french.txt";
+    private static volatile TranslationDictionary map;
+    private static TranslationDictionary base;
+
+    private static final String UNCHARGED = "(uncharged)";
+    private static final String UNCHARGED_FR = "(déchargé)";
+
+    static void init(TranslationStrings strings)
+    {
+        if (map != null)
+        {
+            return;
+        }
+
+        synchronized (FrenchItemTranslations.class)
+        {
+            if (map != null)
+            {
+                return;
+            }
+
+            long start = System.nanoTime();
+            TranslationDictionary dict = TranslationFileLoader.loadDictionary(RESOURCE, strings);
+            if (dict != null)
+            {
+                base = dict;
+                map = dict;
+                log.info("Loaded {} item translations from {} in {} ms",
+                        dict.size(), RESOURCE, (System.nanoTime() - start) / 1_000_000);
+            }
+            else
+            {
+                log.error("Item translations failed to load. Items will not be translated.");
+            }
+        }
+    }
 
-    private static final Pattern DOSE_SUFFIX = Pattern.compile("^(.*?)(\\s*)\\((\\d+)\\)$");
+    /**
+     * Swaps in the bundled translations with {@code overrides} laid on top; an empty
+     * dictionary goes back to the bundled ones.
+     */
+    static void applyOverrides(TranslationDictionary overrides, TranslationStrings strings)
+    {
+        synchronized (FrenchItemTranslations.class)
+        {
+            map = TranslationDictionary.merge(base != null ? base : TranslationDictionary.EMPTY, overrides, strings);
+        }
+    }
 
-    public static void init()
+    static TranslationDictionary dictionary()
     {
-        ensureLoaded();
+        return map;
     }
 
+    /**
+     * Translates an item name. A trailing variant marker, a dose or charge count such as
+     * "(4)" or one of "(i)", "(e)" and "(uncharged)", is recognized on the normalized key
+     * and the name without it is looked up first, with the marker put back after the
+     * translation; "(uncharged)" comes back in French. The name is normalized once; the
+     * common case is a single probe.
+     */
     public static String translateItemName(String englishName)
     {
-        ensureLoaded();
-        if (!loaded || Strings.isNullOrEmpty(englishName))
+        final TranslationDictionary dict = map;
+        if (dict == null || Strings.isNullOrEmpty(englishName))
         {
             return null;
         }
 
-        final String original = Text.removeTags(englishName).trim();
-        if (original.isEmpty())
+        final NormalizedKey key = TranslationFileLoader.normalize(englishName);
+        final int length = key.length();
+        if (length == 0)
         {
             return null;
         }
 
-        String base = original;
-        String suffix = "";
-
-        Matcher m = DOSE_SUFFIX.matcher(original);
-        if (m.matches())
+        String fr = null;
+        final int marker = variantSuffixStart(key, 0, length);
+        if (marker > 0)
         {
-            base = m.group(1).trim();
-
-            suffix = m.group(2) + "(" + m.group(3) + ")";
+            final int baseEnd = key.charAt(marker - 1) == ' ' ? marker - 1 : marker;
+            if (baseEnd > 0)
+            {
+                key.setLength(baseEnd);
+                fr = dict.get(key);
+                if (fr != null)
+                {
+                    // the key is lowercase, and only the uncharged marker starts with a 'u'
+                    fr = key.charAt(marker + 1) == 'u'
+                            ? fr + key.subSequence(baseEnd, marker) + UNCHARGED_FR
+                            : fr + key.subSequence(baseEnd, length);
+                }
+                key.setLength(length);
+            }
         }
 
-        String frBase = MAP.get(TranslationFileLoader.normKey(base));
-        if (frBase != null)
+        if (fr == null)
         {
-            return frBase + suffix;
+            fr = dict.get(key);
         }
 
-        String frExact = MAP.get(TranslationFileLoader.normKey(original));
-        if (frExact != null)
+        if (TranslationMetrics.enabled)
         {
-            return frExact;
+            TranslationMetrics.count(fr != null, TranslationMetrics.Counter.ITEM_HIT, TranslationMetrics.Counter.ITEM_MISS);
         }
-
-        return null;
+        return fr;
     }
 
-    private static void ensureLoaded()
+    /**
+     * Index of the '(' of a variant marker ending {@code s} at {@code end}: a count of
+     * digits, "(i)", "(e)" or "(uncharged)", in either case. Returns -1 if there is none.
+     */
+    static int variantSuffixStart(CharSequence s, int start, int end)
     {
-        if (loaded)
+        if (end - start < 3 || s.charAt(end - 1) != ')')
         {
-            return;
+            return -1;
         }
 
-        synchronized (FrenchItemTranslations.class)
+        int open = end - 2;
+        while (open >= start && s.charAt(open) >= '0' && s.charAt(open) <= '9')
         {
-            if (loaded)
-            {
-                return;
-            }
+            open--;
+        }
+        if (open < end - 2)
+        {
+            return open >= start && s.charAt(open) == '(' ? open : -1;
+        }
 
-            int count = TranslationFileLoader.loadPipeSeparated(RESOURCE, MAP);
-            if (count >= 0)
-            {
-                loaded = true;
-                log.info("Loaded {} item translations from {}", count, RESOURCE);
-            }
-            else
-            {
-                log.error("Item translations failed to load. Items will not be translated.");
-            }
+        if (s.charAt(end - 3) == '(')
+        {
+            final char c = Character.toLowerCase(s.charAt(end - 2));
+            return c == 'i' || c == 'e' ? end - 3 : -1;
         }
+
+        final int uncharged = end - UNCHARGED.length();
+        return uncharged >= start && regionMatchesIgnoreCase(s, uncharged, UNCHARGED) ? uncharged : -1;
     }
 
-    private static String normKey(String s)
+    private static boolean regionMatchesIgnoreCase(CharSequence s, int offset, String lower)
     {
-        if (s == null)
+        for (int i = 0; i < lower.length(); i++)
         {
-            return "";
+            if (Character.toLowerCase(s.charAt(offset + i)) != lower.charAt(i))
+            {
+                return false;
+            }
         }
-
-        String clean = Text.removeTags(s);
-        return clean.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+        return true;
     }
 }
-
@@ -1,265 +1,110 @@
 package com.playercoder1;
 
-import java.util.Locale;
+import lombok.extern.slf4j.Slf4j;
+
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
-public final class FrenchMenuTranslations {
+@Slf4j
+public final class FrenchMenuTranslations
+{
     private FrenchMenuTranslations() {}
 
-    private static String norm(String s) {
-        return s.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
-    }
-
-    private static final Map < String, String > MENU_OPTIONS = Map.ofEntries(
-
-            Map.entry("walk here", "Marcher ici"),
-            Map.entry("follow", "Suivre"),
-            Map.entry("trade with", "Échanger avec"),
-            Map.entry("trade", "Échanger"),
-            Map.entry("report", "Signaler"),
-            Map.entry("examine", "Examiner"),
-            Map.entry("inspect", "Inspecter"),
-            Map.entry("attack", "Attaquer"),
-            Map.entry("pickpocket", "Voler à la tire"),
-            Map.entry("enter", "Entrer"),
-            Map.entry("take", "Prendre"),
-            Map.entry("talk-to", "Parler à"),
-            Map.entry("commune", "Communier"),
-
-            Map.entry("climb-up", "Monter"),
-            Map.entry("climb-down", "Descendre"),
-            Map.entry("walk-down", "Descendre"),
-            Map.entry("pass-through", "Passer"),
-            Map.entry("join", "Rejoindre"),
-            Map.entry("observe", "Observer"),
-            Map.entry("study", "Étudier"),
-            Map.entry("read", "Lire"),
-            Map.entry("view", "Voir"),
-            Map.entry("tutorial", "Tutoriel"),
-
-            Map.entry("bank", "Banque"),
-            Map.entry("collect", "Collecter"),
-            Map.entry("search", "Fouiller"),
-            Map.entry("check", "Vérifier"),
-            Map.entry("setup", "Configurer"),
-            Map.entry("configure", "Configurer"),
-            Map.entry("toggle warnings", "Activer/Désactiver les avertissements"),
-            Map.entry("lock", "Verrouiller"),
-
-            Map.entry("wield", "Manier"),
-            Map.entry("wear", "Porter"),
-            Map.entry("use", "Utiliser"),
-            Map.entry("drop", "Jeter"),
-            Map.entry("destroy", "Détruire"),
-            Map.entry("empty", "Vider"),
-            Map.entry("rub", "Frotter"),
-            Map.entry("charge", "Charger"),
-            Map.entry("uncharge", "Décharger"),
-            Map.entry("revert", "Rétablir"),
-            Map.entry("upgrade", "Améliorer"),
-            Map.entry("armour", "Armure"),
-
-            Map.entry("build", "Construire"),
-            Map.entry("travel", "Voyager"),
-            Map.entry("travel to plateform", "Voyager vers la plateforme"),
-            Map.entry("teleport", "Téléporter"),
-            Map.entry("teleport menu", "Menu de téléportation"),
-
-            Map.entry("remove", "Retirer"),
-            Map.entry("remove board advert", "Retirer l'annonce du panneau"),
-            Map.entry("deposit", "Déposer"),
-            Map.entry("dump", "Déverser"),
-            Map.entry("exchange", "Échanger"),
-            Map.entry("cast", "Lancer"),
-            Map.entry("pray-at", "Prier à"),
-            Map.entry("venerate", "Vénérer"),
-            Map.entry("claim-trophies", "Réclamer les trophées"),
-            Map.entry("sacrifice", "Sacrifier"),
-            Map.entry("toggle-minerals", "Activer/Désactiver minéraux"),
-
-            Map.entry("pay (north)", "Payer (nord)"),
-            Map.entry("pay (south)", "Payer (sud)"),
-            Map.entry("pay", "Payer"),
-
-            Map.entry("top-floor", "Étage supérieur"),
-            Map.entry("bottom-floor", "Étage inférieur"),
-
-            Map.entry("chop down", "Abattre"),
-            Map.entry("chop-down", "Abattre"),
-
-            Map.entry("cook", "Cuisiner"),
-            Map.entry("cook-at", "Cuisiner à"),
-
-            Map.entry("pick-up", "Ramasser"),
-            Map.entry("take-5", "Prendre-5"),
-            Map.entry("take-10", "Prendre-10"),
-            Map.entry("take-x", "Prendre-X"),
-
-            Map.entry("get-rewards", "Obtenir les récompenses"),
-            Map.entry("claim-rewards", "Réclamer les récompenses"),
-            Map.entry("claim-tokens", "Réclamer les jetons"),
-            Map.entry("claim-shield", "Réclamer le bouclier"),
-
-            Map.entry("cancel-task", "Annuler la tâche"),
-
-            Map.entry("eat", "Manger"),
-            Map.entry("drink", "Boire"),
-
-            Map.entry("cancel", "Annuler"),
-            Map.entry("open", "Ouvrir"),
-            Map.entry("close", "Fermer"),
+    static final String RESOURCE = "menu_french.txt";
 
-            Map.entry("lure", "Leurre"),
-            Map.entry("bait", "Appât"),
-            Map.entry("small net", "Petit filet de pêche"),
-            Map.entry("take-net", "Prendre le filet"),
-            Map.entry("net", "Filet"),
-            Map.entry("cage", "Cage"),
-            Map.entry("harpoon", "Harpon"),
+    // Only a few hundred distinct options exist; a flood of odd ones just starts the memo over.
+    private static final int MEMO_LIMIT = 2048;
 
-            Map.entry("mine", "Miner"),
+    // Identity sentinel for options without a translation; never handed out.
+    private static final String NONE = new String("");
 
-            Map.entry("check-health", "Vérifier la santé"),
-            Map.entry("guide", "Guide"),
-            Map.entry("pick-from", "Cueillir sur"),
-            Map.entry("rake", "Râteler"),
-            Map.entry("harvest", "Récolter"),
-            Map.entry("pick", "Cueillir"),
+    private static volatile TranslationDictionary map;
+    private static TranslationDictionary base;
 
-            Map.entry("loot", "Butin"),
-            Map.entry("prices", "Prix"),
-            Map.entry("decant", "Décanter"),
-            Map.entry("climb-into", "Monter dans"),
-            Map.entry("assignment", "Affectation"),
-            Map.entry("rewards", "Récompenses"),
-            Map.entry("smelt", "Fondre"),
-            Map.entry("skull", "Tête de mort"),
-            Map.entry("go-down", "Descendre"),
-            Map.entry("climb", "Monter"),
-            Map.entry("pull", "Tirer"),
-            Map.entry("shut", "Fermer"),
-            Map.entry("smith", "Forger"),
+    // raw option, exactly as the client sends it -> translation or NONE
+    private static final Map<String, String> MEMO = new ConcurrentHashMap<>();
 
-            Map.entry("check-count", "Vérifier le nombre"),
-            Map.entry("slash", "Trancher"),
-            Map.entry("relocate", "Déplacer"),
-            Map.entry("redecorate", "Redécorer"),
-
-            Map.entry("squeeze-through", "Se faufiler"),
-            Map.entry("climb-through", "Grimper à travers"),
-            Map.entry("peek", "Jeter un œil"),
-            Map.entry("jump", "Sauter"),
-            Map.entry("cross", "Traverser"),
-            Map.entry("walk-across", "Marcher dessus"),
-            Map.entry("climb-over", "Escalader"),
-            Map.entry("walk-on", "Marcher dessus"),
-
-            Map.entry("withdraw-1", "Retirer-1"),
-            Map.entry("withdraw-5", "Retirer-5"),
-            Map.entry("withdraw-10", "Retirer-10"),
-            Map.entry("withdraw-x", "Retirer-X"),
-            Map.entry("withdraw-all", "Retirer-tout"),
-            Map.entry("withdraw-all-but-1", "Retirer-tout-sauf-1"),
-
-            Map.entry("board", "Monter à bord"),
-            Map.entry("board-previous", "Monter à bord (précédent)"),
-            Map.entry("board-friend", "Monter à bord (ami)"),
-            Map.entry("dock", "Accoster"),
-            Map.entry("ferry", "Ferry"),
-
-            Map.entry("quick-climb", "Monter rapidement"),
-            Map.entry("quick-start", "Démarrage rapide"),
-            Map.entry("solo-start", "Démarrer en solo"),
-            Map.entry("sort-salvage", "Trier le butin"),
-            Map.entry("cut", "Couper"),
-            Map.entry("go-through", "Traverser"),
-            Map.entry("look-at", "Regarder"),
-            Map.entry("reinvigorate", "Revigorer"),
-            Map.entry("check-approval", "Vérifier l’approbation"),
-            Map.entry("animate", "Animer"),
-
-            Map.entry("fill", "Remplir"),
-            Map.entry("check-ammo", "Vérifier les munitions"),
-            Map.entry("tether", "Attacher"),
-            Map.entry("forfeit", "Abandonner"),
-            Map.entry("pet", "Caresser"),
-            Map.entry("shoo-away", "Chasser"),
-            Map.entry("view-stats", "Voir les statistiques"),
-            Map.entry("view-glory", "Voir Glory"),
-            Map.entry("exit", "Sortie"),
-            Map.entry("craft", "Fabriquer"),
-            Map.entry("holiday-items", "Objets de fêtes"),
-            Map.entry("redeem-code", "Utiliser le code"),
-            Map.entry("take-boat", "Prendre le bateau"),
-            Map.entry("buy-boat", "Acheter un bateau"),
-            Map.entry("customise-boat", "Personnaliser le bateau"),
-            Map.entry("recover-boat", "Récupérer le bateau"),
-
-            Map.entry("take-cargo", "Prendre la cargaison"),
-            Map.entry("take-last-cargo", "Prendre la dernière cargaison"),
-            Map.entry("take-any-cargo", "Prendre n'importe quelle cargaison"),
-
-            Map.entry("charter", "Affréter"),
-            Map.entry("steal-from", "Voler à"),
-
-            Map.entry("quick-deposits", "Dépôts rapides"),
-            Map.entry("navigate", "Naviguer"),
-            Map.entry("escape", "S'échapper"),
-            Map.entry("disembark", "Débarquer"),
-            Map.entry("collect-data", "Collecter des données"),
-            Map.entry("tend-to", "S'occuper de"),
-            Map.entry("rest", "Se reposer"),
-            Map.entry("set-trap", "Poser un piège"),
-            Map.entry("catch", "Attraper"),
-
-            Map.entry("craft-rune", "Fabriquer une rune"),
-            Map.entry("dismantle", "Démonter"),
-            Map.entry("investigate", "Enquêter"),
-            Map.entry("reset", "Réinitialiser"),
+    static void init(TranslationStrings strings)
+    {
+        if (map != null)
+        {
+            return;
+        }
 
-            Map.entry("lay", "Poser"),
-            Map.entry("move", "Déplacer"),
-            Map.entry("crawl-through", "Ramper à travers"),
-            Map.entry("grapple", "S'agripper"),
+        synchronized (FrenchMenuTranslations.class)
+        {
+            if (map != null)
+            {
+                return;
+            }
+
+            long start = System.nanoTime();
+            TranslationDictionary dict = TranslationFileLoader.loadDictionary(RESOURCE, strings);
+            if (dict != null)
+            {
+                base = dict;
+                map = dict;
+                MEMO.clear();
+                log.info("Loaded {} menu translations from {} in {} ms",
+                        dict.size(), RESOURCE, (System.nanoTime() - start) / 1_000_000);
+            }
+            else
+            {
+                log.error("Menu translations failed to load. Menu options will not be translated.");
+            }
+        }
+    }
 
-            Map.entry("remove-room", "Supprimer la salle"),
-            Map.entry("challenge-mode", "Mode défi"),
-            Map.entry("items", "Objets"),
+    /**
+     * Swaps in the bundled translations with {@code overrides} laid on top; an empty
+     * dictionary goes back to the bundled ones.
+     */
+    static void applyOverrides(TranslationDictionary overrides, TranslationStrings strings)
+    {
+        synchronized (FrenchMenuTranslations.class)
+        {
+            map = TranslationDictionary.merge(base != null ? base : TranslationDictionary.EMPTY, overrides, strings);
+            MEMO.clear();
+        }
+    }
 
-            Map.entry("enter-member", "Entrer (membre)"),
-            Map.entry("enter-guest", "Entrer (invité)"),
-            Map.entry("claim", "Réclamer"),
-            Map.entry("use-rod", "Utiliser la canne"),
-            Map.entry("private", "Privé"),
-            Map.entry("pass", "Passer"),
-            Map.entry("bury", "Enterrer"),
-            Map.entry("toggle", "Activer/Désactiver"),
-            Map.entry("unload", "Décharger"),
-            Map.entry("load", "Charger"),
-            Map.entry("break", "Briser"),
-            Map.entry("inside", "À l'intérieur"),
-            Map.entry("outside", "À l'extérieur"),
-            Map.entry("group", "Groupe"),
-            Map.entry("reminisce", "Se remémorer"),
-            Map.entry("remove default", "Retirer par défaut"),
-            Map.entry("recite-prayer", "Réciter une prière"),
-            Map.entry("functions", "Fonctions"),
-            Map.entry("chase", "Chasser"),
-            Map.entry("interact", "Interagir"),
-            Map.entry("combine", "Combiner"),
-            Map.entry("check-keys", "Vérifier les clés"),
-            Map.entry("sets", "Ensembles"),
-            Map.entry("history", "Historique"),
-            Map.entry("jump-over", "Sauter par dessus"),
-            Map.entry("quick-board", "Monter rapidement"),
-            Map.entry("descend", "Descendre"),
-            Map.entry("buy", "Acheter")
-            );
+    static TranslationDictionary dictionary()
+    {
+        return map;
+    }
 
-    public static String translateOption(String englishOption) {
-        if (englishOption == null || englishOption.isEmpty()) {
+    /**
+     * Translates a menu option. The first time an option string is seen it is normalized and
+     * looked up; the answer, a miss included, is remembered under the raw string, so the
+     * options of every later menu cost one hash lookup.
+     */
+    public static String translateOption(String englishOption)
+    {
+        final TranslationDictionary dict = map;
+        if (dict == null || englishOption == null || englishOption.isEmpty())
+        {
             return null;
         }
-        return MENU_OPTIONS.get(norm(englishOption));
+
+        String fr = MEMO.get(englishOption);
+        if (fr == null)
+        {
+            fr = dict.get(TranslationFileLoader.normalize(englishOption));
+            if (fr == null)
+            {
+                fr = NONE;
+            }
+
+            if (MEMO.size() >= MEMO_LIMIT)
+            {
+                MEMO.clear();
+            }
+            // an override swapped in meanwhile cleared the memo; don't refill it with this answer
+            if (map == dict)
+            {
+                MEMO.put(englishOption, fr);
+            }
+        }
+        return fr == NONE ? null : fr;
     }
-}
\ No newline at end of file
+}
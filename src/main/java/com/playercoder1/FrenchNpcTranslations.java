@@ -2,54 +2,37 @@ package com.playercoder1;
 
 import lombok.extern.slf4j.Slf4j;
 
-import java.util.HashMap;
-import java.util.Map;
-
 @Slf4j
 public final class FrenchNpcTranslations
 {
     private FrenchNpcTranslations() {}
 
-    private static final String RESOURCE = "npc_french.txt";
-    private static final Map<String, String> MAP = new HashMap<>();
-
-    private static volatile boolean loaded = false;
-
-    public static void init()
-    {
-        ensureLoaded();
-    }
-
-    public static String translateNpcName(String englishName)
-    {
-        ensureLoaded();
-        if (!loaded || englishName == null || englishName.isEmpty())
-        {
-            return null;
-        }
-
-        return MAP.get(TranslationFileLoader.normKey(englishName));
-    }
+    static final String RESOURCE = "npc_french.txt";
+    private static volatile TranslationDictionary map;
+    private static TranslationDictionary base;
 
-    private static void ensureLoaded()
+    static void init(TranslationStrings strings)
     {
-        if (loaded)
+        if (map != null)
         {
             return;
         }
 
         synchronized (FrenchNpcTranslations.class)
         {
-            if (loaded)
+            if (map != null)
             {
                 return;
             }
 
-            int count = TranslationFileLoader.loadPipeSeparated(RESOURCE, MAP);
-            if (count >= 0)
+            long start = System.nanoTime();
+            TranslationDictionary dict = TranslationFileLoader.loadDictionary(RESOURCE, strings);
+            if (dict != null)
             {
-                loaded = true;
-                log.info("Loaded {} NPC translations from {}", count, RESOURCE);
+                base = dict;
+                map = dict;
+                log.info("Loaded {} NPC translations from {} in {} ms",
+                        dict.size(), RESOURCE, (System.nanoTime() - start) / 1_000_000);
             }
             else
             {
@@ -57,4 +40,37 @@ public final class FrenchNpcTranslations
             }
         }
     }
+
+    /**
+     * Swaps in the bundled translations with {@code overrides} laid on top; an empty
+     * dictionary goes back to the bundled ones.
+     */
+    static void applyOverrides(TranslationDictionary overrides, TranslationStrings strings)
+    {
+        synchronized (FrenchNpcTranslations.class)
+        {
+            map = TranslationDictionary.merge(base != null ? base : TranslationDictionary.EMPTY, overrides, strings);
+        }
+    }
+
+    static TranslationDictionary dictionary()
+    {
+        return map;
+    }
+
+    public static String translateNpcName(String englishName)
+    {
+        final TranslationDictionary dict = map;
+        if (dict == null || englishName == null || englishName.isEmpty())
+        {
+            return null;
+        }
+
+        String fr = dict.get(TranslationFileLoader.normalize(englishName));
+        if (TranslationMetrics.enabled)
+        {
+            TranslationMetrics.count(fr != null, TranslationMetrics.Counter.NPC_HIT, TranslationMetrics.Counter.NPC_MISS);
+        }
+        return fr;
+    }
 }
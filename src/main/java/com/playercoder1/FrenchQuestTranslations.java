@@ -3,9 +3,7 @@ package com.playercoder1;
 import com.google.common.base.Strings;
 import lombok.extern.slf4j.Slf4j;
 
-import java.util.HashMap;
 import java.util.Locale;
-import java.util.Map;
 
 @Slf4j
 public final class FrenchQuestTranslations
@@ -14,9 +12,9 @@ public final class FrenchQuestTranslations
 
     public static final int IFACE_QUESTLIST = 399;
 
-    private static final String RESOURCE = "quest_french.txt";
-    private static final Map<String, String> MAP = new HashMap<>();
-    private static volatile boolean loaded = false;
+    static final String RESOURCE = "quest_french.txt";
+    private static volatile TranslationDictionary map;
+    private static TranslationDictionary base;
 
     private static final String QUEST_LIST_EN = "quest list";
     private static final String QUEST_LIST_FR = "Liste des quêtes";
@@ -27,21 +25,68 @@ public final class FrenchQuestTranslations
     private static final String QUEST_POINTS_EN = "quest points";
     private static final String QUEST_POINTS_FR = "Points de quête";
 
-    public static void init()
+    static void init(TranslationStrings strings)
     {
-        ensureLoaded();
+        if (map != null)
+        {
+            return;
+        }
+
+        synchronized (FrenchQuestTranslations.class)
+        {
+            if (map != null)
+            {
+                return;
+            }
+
+            long start = System.nanoTime();
+            TranslationDictionary dict = TranslationFileLoader.loadDictionary(RESOURCE, strings);
+            if (dict != null)
+            {
+                base = dict;
+                map = dict;
+                log.info("Loaded {} quest translations from {} in {} ms",
+                        dict.size(), RESOURCE, (System.nanoTime() - start) / 1_000_000);
+            }
+            else
+            {
+                log.error("Quest translations failed to load. Quests will not be translated.");
+            }
+        }
+    }
+
+    /**
+     * Swaps in the bundled translations with {@code overrides} laid on top; an empty
+     * dictionary goes back to the bundled ones.
+     */
+    static void applyOverrides(TranslationDictionary overrides, TranslationStrings strings)
+    {
+        synchronized (FrenchQuestTranslations.class)
+        {
+            map = TranslationDictionary.merge(base != null ? base : TranslationDictionary.EMPTY, overrides, strings);
+        }
+    }
+
+    static TranslationDictionary dictionary()
+    {
+        return map;
     }
 
     public static String translateQuestName(String englishQuestName)
     {
-        ensureLoaded();
-        if (!loaded || Strings.isNullOrEmpty(englishQuestName))
+        final TranslationDictionary dict = map;
+        if (dict == null || Strings.isNullOrEmpty(englishQuestName))
         {
             return null;
         }
 
         String normalized = normalizeApostrophes(englishQuestName);
-        return MAP.get(TranslationFileLoader.normKey(normalized));
+        String fr = dict.get(TranslationFileLoader.normalize(normalized));
+        if (TranslationMetrics.enabled)
+        {
+            TranslationMetrics.count(fr != null, TranslationMetrics.Counter.QUEST_HIT, TranslationMetrics.Counter.QUEST_MISS);
+        }
+        return fr;
     }
 
     public static String translateQuestPanelLabelsRaw(String rawText)
@@ -57,10 +102,9 @@ public final class FrenchQuestTranslations
             return null;
         }
 
-        String norm = TranslationFileLoader.normKey(visible);
         String lower = visible.toLowerCase(Locale.ROOT);
 
-        if (QUEST_LIST_EN.equals(norm))
+        if (TranslationFileLoader.normalize(visible).contentEquals(QUEST_LIST_EN))
         {
             String out = rawText.replaceAll("(?i)\\bQuest\\s+list\\b", QUEST_LIST_FR);
             return out.equals(rawText) ? null : out;
@@ -81,33 +125,6 @@ public final class FrenchQuestTranslations
         return null;
     }
 
-    private static void ensureLoaded()
-    {
-        if (loaded)
-        {
-            return;
-        }
-
-        synchronized (FrenchQuestTranslations.class)
-        {
-            if (loaded)
-            {
-                return;
-            }
-
-            int count = TranslationFileLoader.loadPipeSeparated(RESOURCE, MAP);
-            if (count >= 0)
-            {
-                loaded = true;
-                log.info("Loaded {} quest translations from {}", count, RESOURCE);
-            }
-            else
-            {
-                log.error("Quest translations failed to load. Quests will not be translated.");
-            }
-        }
-    }
-
     private static String normalizeApostrophes(String s)
     {
 
@@ -3,6 +3,8 @@ package com.playercoder1;
 import net.runelite.client.config.Config;
 import net.runelite.client.config.ConfigGroup;
 import net.runelite.client.config.ConfigItem;
+import net.runelite.client.config.Range;
+import net.runelite.client.config.Units;
 
 @ConfigGroup(FrenchTranslationConfig.GROUP)
 public interface FrenchTranslationConfig extends Config
@@ -49,6 +51,16 @@ public interface FrenchTranslationConfig extends Config
         return true;
     }
 
+    @ConfigItem(
+            keyName = "translateChat",
+            name = "Translate game messages",
+            description = "Translate game and filtered messages in the chatbox, such as \"You catch some shrimps.\", through the dialog lines of a dialog_french.txt override"
+    )
+    default boolean translateChat()
+    {
+        return false;
+    }
+
     @ConfigItem(
             keyName = "translateQuests",
             name = "Translate quest list",
@@ -58,4 +70,88 @@ public interface FrenchTranslationConfig extends Config
     {
         return true;
     }
+
+    @ConfigItem(
+            keyName = "translationOverrides",
+            name = "Load override files",
+            description = "Load translation files from the osrs-in-french folder in the RuneLite folder on top of the bundled ones, and reload them whenever they are saved"
+    )
+    default boolean translationOverrides()
+    {
+        return false;
+    }
+
+    @ConfigItem(
+            keyName = "fullSweepInterval",
+            name = "Full interface rescan",
+            description = "How often every open interface is rescanned; in between, only interfaces that were just opened or redrawn are translated"
+    )
+    @Range(min = 1, max = 500)
+    @Units(Units.TICKS)
+    default int fullSweepInterval()
+    {
+        return 10;
+    }
+
+    @ConfigItem(
+            keyName = "widgetTimeBudget",
+            name = "Interface time budget",
+            description = "Client time spent translating interfaces per tick; large interfaces are finished over the next ticks"
+    )
+    @Range(min = 100, max = 50000)
+    @Units("µs")
+    default int widgetTimeBudget()
+    {
+        return 1000;
+    }
+
+    @ConfigItem(
+            keyName = "skipIdleInterfaces",
+            name = "Skip idle interfaces",
+            description = "Stop rescanning interfaces that never contain anything to translate (minimap, orbs, XP drops); they are checked again when reopened"
+    )
+    default boolean skipIdleInterfaces()
+    {
+        return true;
+    }
+
+    @ConfigItem(
+            keyName = "alwaysTranslateInterfaces",
+            name = "Always scan interfaces",
+            description = "Comma-separated interface group ids that are never skipped as idle"
+    )
+    default String alwaysTranslateInterfaces()
+    {
+        return "";
+    }
+
+    @ConfigItem(
+            keyName = "neverTranslateInterfaces",
+            name = "Never scan interfaces",
+            description = "Comma-separated interface group ids that are never translated"
+    )
+    default String neverTranslateInterfaces()
+    {
+        return "";
+    }
+
+    @ConfigItem(
+            keyName = "performanceMetrics",
+            name = "Performance metrics",
+            description = "Measure how much client time translation takes and write the last hour of it, once a minute, to osrs-in-french-metrics.log in the RuneLite folder"
+    )
+    default boolean performanceMetrics()
+    {
+        return false;
+    }
+
+    @ConfigItem(
+            keyName = "showMetricsOverlay",
+            name = "Show metrics overlay",
+            description = "Show the performance metrics in an overlay while they are enabled"
+    )
+    default boolean showMetricsOverlay()
+    {
+        return true;
+    }
 }
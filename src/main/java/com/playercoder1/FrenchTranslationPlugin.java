@@ -2,26 +2,40 @@ package com.playercoder1;
 
 import com.google.inject.Provides;
 import lombok.extern.slf4j.Slf4j;
+import net.runelite.api.ChatMessageType;
 import net.runelite.api.Client;
 import net.runelite.api.GameState;
+import net.runelite.api.ItemComposition;
 import net.runelite.api.MenuEntry;
 import net.runelite.api.NPC;
+import net.runelite.api.ScriptEvent;
 import net.runelite.api.events.BeforeRender;
+import net.runelite.api.events.ChatMessage;
+import net.runelite.api.events.GameStateChanged;
 import net.runelite.api.events.GameTick;
 import net.runelite.api.events.MenuEntryAdded;
 import net.runelite.api.events.PostItemComposition;
+import net.runelite.api.events.ScriptPostFired;
+import net.runelite.api.events.WidgetClosed;
+import net.runelite.api.events.WidgetLoaded;
 import net.runelite.api.widgets.Widget;
 import net.runelite.api.widgets.WidgetUtil;
+import net.runelite.client.RuneLite;
 import net.runelite.client.callback.ClientThread;
 import net.runelite.client.config.ConfigManager;
+import net.runelite.client.events.ConfigChanged;
 import net.runelite.client.eventbus.Subscribe;
 import net.runelite.client.plugins.Plugin;
 import net.runelite.client.plugins.PluginDescriptor;
+import net.runelite.client.ui.overlay.OverlayManager;
 import net.runelite.client.util.Text;
 
 import javax.inject.Inject;
-import java.util.HashMap;
-import java.util.Map;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
 
 @Slf4j
 @PluginDescriptor(
@@ -45,45 +59,249 @@ public class FrenchTranslationPlugin extends Plugin
     private static final int CHILD_CONTINUE = 5;
     private static final int CHILD_TEXT = 6;
 
+    private static final int WIDGET_TEXT_CACHE_SIZE = 8192;
+    private static final int MENU_TARGET_CACHE_SIZE = 1024;
+
+    private static final String LEVEL_PREFIX = "(level-";
+
+    private static final int METRICS_DUMP_TICKS = 100;
+    private static final Path METRICS_FILE = RuneLite.RUNELITE_DIR.toPath().resolve("osrs-in-french-metrics.log");
+
     @Inject private Client client;
     @Inject private ClientThread clientThread;
 
     @Inject private FrenchTranslationConfig config;
 
+    @Inject private OverlayManager overlayManager;
+    @Inject private TranslationMetricsOverlay metricsOverlay;
+    @Inject private ScheduledExecutorService executor;
+
     @Provides
     FrenchTranslationConfig provideConfig(ConfigManager configManager)
     {
         return configManager.getConfig(FrenchTranslationConfig.class);
     }
 
-    private final Map<Integer, String> originalItemNames = new HashMap<>();
-    private final Map<Integer, String> lastWidgetText = new HashMap<>();
+    private final RenamedItems renamedItems = new RenamedItems();
+    private final WidgetTextCache lastWidgetText = new WidgetTextCache(WIDGET_TEXT_CACHE_SIZE);
+    private final TextMissCache widgetTextMisses = new TextMissCache();
+    private PhraseSegmenter widgetSegmenter;
+    private final TagEnvelope tagEnvelope = new TagEnvelope();
+    private final ChatMessageTranslator chatMessages = new ChatMessageTranslator(tagEnvelope);
+    private final MenuTargetCache menuTargets = new MenuTargetCache(MENU_TARGET_CACHE_SIZE);
+    private final IdTranslationTable itemNamesById = new IdTranslationTable();
+    private final IdTranslationTable npcNamesById = new IdTranslationTable();
+
+    private final BitSet dirtyGroups = new BitSet();
+    private final TranslatedWidgets translatedWidgets = new TranslatedWidgets();
+    private boolean scriptsFired;
+
+    private final DialogMemo[] dialogMemos = {
+            new DialogMemo(), new DialogMemo(), new DialogMemo(),
+            new DialogMemo(), new DialogMemo(), new DialogMemo()
+    };
+    private DialogMemo[] chatmenuMemos = new DialogMemo[0];
+
+    private volatile CompletableFuture<Void> dictionaryLoad;
+    private volatile boolean dictionariesLoaded;
+    private final TranslationOverrides overrides = new TranslationOverrides(this::dictionariesChanged);
+    private boolean sweepRequested = true;
+    private int ticksSinceSweep;
+
+    private final WidgetWalker walker = new WidgetWalker();
+    private final InterfaceYieldFilter interfaceFilter = new InterfaceYieldFilter();
+    private final WidgetWalker.Visitor widgetVisitor = new WidgetWalker.Visitor()
+    {
+        @Override
+        public boolean visit(Widget widget, boolean fullSweep)
+        {
+            return visitWidget(widget, fullSweep);
+        }
+
+        @Override
+        public void hostsInterface(Widget widget)
+        {
+            interfaceFilter.hostsInterface(WidgetUtil.componentToInterface(widget.getId()));
+        }
+    };
+    private boolean sweeping;
+
+    private boolean metricsOverlayShown;
+    private int widgetsVisited;
+    private int ticksSinceMetricsDump;
 
     @Override
     protected void startUp()
     {
-        FrenchItemTranslations.init();
-        FrenchNpcTranslations.init();
-        FrenchDialogTranslations.init();
-        FrenchQuestTranslations.init();
-
         lastWidgetText.clear();
+        widgetTextMisses.clear();
+        menuTargets.clear();
+        itemNamesById.clear();
+        npcNamesById.clear();
+        resetWidgetTracking();
+        clearDialogMemos();
+
+        applyMetricsConfig();
+        applyInterfaceFilterConfig();
+        loadDictionaries();
         log.info("French Translation started");
     }
 
+    /**
+     * Loads the dictionaries on the injected executor. Completion is handled there as well,
+     * never on the thread that called this, and everything the client thread owns is only
+     * touched through {@link #dictionariesChanged}.
+     */
+    private void loadDictionaries()
+    {
+        final long start = System.nanoTime();
+
+        // shared by the five dictionaries of this load only, so equal values are one instance
+        final TranslationStrings strings = new TranslationStrings();
+        final CompletableFuture<Void> load = CompletableFuture.allOf(
+                CompletableFuture.runAsync(() -> FrenchItemTranslations.init(strings), executor),
+                CompletableFuture.runAsync(() -> FrenchNpcTranslations.init(strings), executor),
+                CompletableFuture.runAsync(() -> FrenchDialogTranslations.init(strings), executor),
+                CompletableFuture.runAsync(() -> FrenchQuestTranslations.init(strings), executor),
+                CompletableFuture.runAsync(() -> FrenchMenuTranslations.init(strings), executor));
+        dictionaryLoad = load;
+
+        load.whenCompleteAsync((ignored, ex) ->
+        {
+            if (dictionaryLoad != load)
+            {
+                // stopped while loading
+                return;
+            }
+
+            if (ex != null)
+            {
+                log.error("Failed loading translations", ex);
+                return;
+            }
+
+            log.info("Translations ready in {} ms, {} KiB of duplicate values shared",
+                    (System.nanoTime() - start) / 1_000_000, strings.freedBytes() / 1024);
+
+            dictionariesLoaded = true;
+            if (config.translationOverrides())
+            {
+                overrides.start();
+            }
+            dictionariesChanged();
+
+            // Compositions posted while loading were not renamed and are not posted again
+            // until the client drops them from its cache.
+            clientThread.invokeLater(() -> client.getItemCompositionCache().reset());
+        }, executor);
+    }
+
+    /**
+     * Called from a background thread once the dictionaries are loaded and whenever an
+     * override file changes them. Everything the client thread remembered was decided
+     * against the old dictionaries (or none, while loading), so it starts over.
+     */
+    private void dictionariesChanged()
+    {
+        final PhraseSegmenter segmenter = PhraseSegmenter.of(
+                FrenchNpcTranslations.dictionary(), FrenchItemTranslations.dictionary());
+
+        clientThread.invokeLater(() ->
+        {
+            widgetSegmenter = segmenter;
+            widgetTextMisses.clear();
+            lastWidgetText.clear();
+            menuTargets.clear();
+            itemNamesById.clear();
+            npcNamesById.clear();
+            clearDialogMemos();
+            chatMessages.clear();
+            retranslateItemCompositions();
+            sweepRequested = true;
+        });
+    }
+
+    /**
+     * Item compositions are only posted once, so the ones already renamed are renamed again
+     * with the current dictionary.
+     */
+    private void retranslateItemCompositions()
+    {
+        if (!config.translateItems())
+        {
+            return;
+        }
+
+        renamedItems.forEach((english, id) ->
+        {
+            String fr = itemNamesById.resolve(id, english, FrenchItemTranslations::translateItemName);
+            client.getItemDefinition(id).setName(fr != null ? fr : english);
+        });
+    }
+
+    private void applyInterfaceFilterConfig()
+    {
+        interfaceFilter.configure(
+                InterfaceYieldFilter.parseGroups(config.alwaysTranslateInterfaces()),
+                InterfaceYieldFilter.parseGroups(config.neverTranslateInterfaces()),
+                config.skipIdleInterfaces());
+    }
+
+    private void applyMetricsConfig()
+    {
+        final boolean collect = config.performanceMetrics();
+        if (collect && !TranslationMetrics.enabled)
+        {
+            TranslationMetrics.reset();
+            ticksSinceMetricsDump = 0;
+        }
+        TranslationMetrics.enabled = collect;
+
+        final boolean show = collect && config.showMetricsOverlay();
+        if (show != metricsOverlayShown)
+        {
+            if (show)
+            {
+                overlayManager.add(metricsOverlay);
+            }
+            else
+            {
+                overlayManager.remove(metricsOverlay);
+            }
+            metricsOverlayShown = show;
+        }
+    }
+
     @Override
     protected void shutDown()
     {
+        TranslationMetrics.enabled = false;
+        if (metricsOverlayShown)
+        {
+            overlayManager.remove(metricsOverlay);
+            metricsOverlayShown = false;
+        }
+
+        // a load still running finishes on the executor and is then ignored
+        dictionaryLoad = null;
+        dictionariesLoaded = false;
+        overrides.stop();
+
         clientThread.invoke(() ->
         {
             try
             {
-                for (Map.Entry<Integer, String> e : originalItemNames.entrySet())
-                {
-                    client.getItemDefinition(e.getKey()).setName(e.getValue());
-                }
-                originalItemNames.clear();
+                renamedItems.forEach((english, id) -> client.getItemDefinition(id).setName(english));
+                renamedItems.clear();
                 lastWidgetText.clear();
+                tagEnvelope.clear();
+                chatMessages.clear();
+                chatMessages.discardPending();
+                menuTargets.clear();
+                itemNamesById.clear();
+                npcNamesById.clear();
+                resetWidgetTracking();
+                clearDialogMemos();
             }
             catch (Exception ex)
             {
@@ -94,37 +312,129 @@ public class FrenchTranslationPlugin extends Plugin
         });
     }
 
+    @Subscribe
+    public void onConfigChanged(ConfigChanged event)
+    {
+        if (FrenchTranslationConfig.GROUP.equals(event.getGroup()))
+        {
+            if ("translationOverrides".equals(event.getKey()) && dictionariesLoaded)
+            {
+                executor.execute(() ->
+                {
+                    if (config.translationOverrides())
+                    {
+                        overrides.start();
+                    }
+                    else
+                    {
+                        overrides.stop();
+                    }
+                    dictionariesChanged();
+                });
+            }
+
+            clientThread.invokeLater(() ->
+            {
+                menuTargets.clear();
+                widgetTextMisses.clear();
+                applyMetricsConfig();
+                applyInterfaceFilterConfig();
+            });
+        }
+    }
+
     @Subscribe
     public void onPostItemComposition(PostItemComposition event)
+    {
+        if (!TranslationMetrics.enabled)
+        {
+            translateItemComposition(event);
+            return;
+        }
+
+        final long start = System.nanoTime();
+        translateItemComposition(event);
+        TranslationMetrics.time(TranslationMetrics.Timer.ITEM_COMPOSITION, System.nanoTime() - start);
+    }
+
+    private void translateItemComposition(PostItemComposition event)
     {
         if (!config.translateItems())
         {
             return;
         }
 
-        final int itemId = event.getItemComposition().getId();
+        final ItemComposition item = event.getItemComposition();
+        final int itemId = item.getId();
 
-        String fr = FrenchItemTranslations.translateItemName(event.getItemComposition().getName());
-        if (fr == null)
+        String fr = itemNamesById.resolve(itemId, item.getName(), FrenchItemTranslations::translateItemName);
+        if (fr != null && renamedItems.add(itemId, item.getName()))
+        {
+            item.setName(fr);
+        }
+    }
+
+    @Subscribe
+    public void onChatMessage(ChatMessage event)
+    {
+        if (!config.translateChat())
         {
             return;
         }
 
-        originalItemNames.putIfAbsent(itemId, event.getItemComposition().getName());
-        event.getItemComposition().setName(fr);
+        final ChatMessageType type = event.getType();
+        if (type != ChatMessageType.GAMEMESSAGE && type != ChatMessageType.SPAM)
+        {
+            return;
+        }
+
+        // Messages of one burst arrive together; translate them and redraw the chatbox once.
+        if (chatMessages.queue(event.getMessageNode()))
+        {
+            clientThread.invokeLater(this::translateQueuedChat);
+        }
+    }
+
+    private void translateQueuedChat()
+    {
+        // turned off since the burst was queued
+        if (!config.translateChat())
+        {
+            chatMessages.discardPending();
+            return;
+        }
+
+        if (chatMessages.drain())
+        {
+            client.refreshChat();
+        }
     }
 
     @Subscribe
     public void onMenuEntryAdded(MenuEntryAdded event)
+    {
+        if (!TranslationMetrics.enabled)
+        {
+            translateMenuEntry(event);
+            return;
+        }
+
+        final long start = System.nanoTime();
+        translateMenuEntry(event);
+        TranslationMetrics.time(TranslationMetrics.Timer.MENU_ENTRY, System.nanoTime() - start);
+    }
+
+    private void translateMenuEntry(MenuEntryAdded event)
     {
         MenuEntry entry = event.getMenuEntry();
 
         if (config.translateMenu())
         {
-            String optFr = FrenchMenuTranslations.translateOption(entry.getOption());
+            final String option = entry.getOption();
+            String optFr = FrenchMenuTranslations.translateOption(option);
             if (optFr != null)
             {
-                entry.setOption(optFr);
+                entry.setOption(tagEnvelope.wrap(option, optFr));
             }
         }
 
@@ -147,11 +457,48 @@ public class FrenchTranslationPlugin extends Plugin
     }
 
     private String translateMenuTarget(MenuEntry entry, String targetWithTags)
+    {
+        final NPC npc = entry.getNpc();
+        final int itemId = entry.getItemId();
+
+        final byte kind;
+        final int id;
+        if (npc != null)
+        {
+            kind = MenuTargetCache.KIND_NPC;
+            id = npc.getId();
+        }
+        else if (itemId > 0)
+        {
+            kind = MenuTargetCache.KIND_ITEM;
+            id = itemId;
+        }
+        else
+        {
+            kind = MenuTargetCache.KIND_OTHER;
+            id = 0;
+        }
+
+        String cached = menuTargets.get(kind, id, targetWithTags);
+        if (TranslationMetrics.enabled)
+        {
+            TranslationMetrics.count(cached != null, TranslationMetrics.Counter.MENU_CACHE_HIT, TranslationMetrics.Counter.MENU_CACHE_MISS);
+        }
+        if (cached != null)
+        {
+            return cached;
+        }
+
+        String translated = translateMenuTarget(npc, itemId, targetWithTags);
+        menuTargets.put(kind, id, targetWithTags, translated != null ? translated : targetWithTags);
+        return translated;
+    }
+
+    private String translateMenuTarget(NPC npc, int itemId, String targetWithTags)
     {
         String clean = Text.removeTags(targetWithTags);
         String base = stripCombatLevelSuffix(clean);
 
-        NPC npc = entry.getNpc();
         if (npc != null)
         {
             if (!config.translateNpcs())
@@ -159,7 +506,7 @@ public class FrenchTranslationPlugin extends Plugin
                 return null;
             }
 
-            String frNpc = FrenchNpcTranslations.translateNpcName(npc.getName());
+            String frNpc = npcNamesById.resolve(npc.getId(), npc.getName(), FrenchNpcTranslations::translateNpcName);
             if (frNpc == null)
             {
                 frNpc = FrenchNpcTranslations.translateNpcName(base);
@@ -172,7 +519,6 @@ public class FrenchTranslationPlugin extends Plugin
             return targetWithTags.replace(base, frNpc);
         }
 
-        int itemId = entry.getItemId();
         if (itemId > 0)
         {
             if (!config.translateItems())
@@ -180,7 +526,8 @@ public class FrenchTranslationPlugin extends Plugin
                 return null;
             }
 
-            String frItem = FrenchItemTranslations.translateItemName(base);
+            // Only item compositions, which carry the real name, fill the table.
+            String frItem = itemNamesById.lookup(itemId, base, FrenchItemTranslations::translateItemName);
             if (frItem == null)
             {
                 return null;
@@ -210,14 +557,50 @@ public class FrenchTranslationPlugin extends Plugin
         return null;
     }
 
-    private static String stripCombatLevelSuffix(String s)
+    static String stripCombatLevelSuffix(String s)
     {
         if (s == null) return null;
-        return s.replaceAll("\\s*\\(level-\\d+\\)$", "");
+
+        int end = s.length() - 1;
+        if (end < 0 || s.charAt(end) != ')')
+        {
+            return s;
+        }
+
+        int i = end - 1;
+        while (i >= 0 && s.charAt(i) >= '0' && s.charAt(i) <= '9')
+        {
+            i--;
+        }
+
+        int open = i - LEVEL_PREFIX.length() + 1;
+        if (i == end - 1 || open < 0 || !s.startsWith(LEVEL_PREFIX, open))
+        {
+            return s;
+        }
+
+        while (open > 0 && Character.isWhitespace(s.charAt(open - 1)))
+        {
+            open--;
+        }
+        return s.substring(0, open);
     }
 
     @Subscribe
     public void onBeforeRender(BeforeRender event)
+    {
+        if (!TranslationMetrics.enabled)
+        {
+            translateVisibleDialogs();
+            return;
+        }
+
+        final long start = System.nanoTime();
+        translateVisibleDialogs();
+        TranslationMetrics.time(TranslationMetrics.Timer.BEFORE_RENDER, System.nanoTime() - start);
+    }
+
+    private void translateVisibleDialogs()
     {
         if (client.getGameState() != GameState.LOGGED_IN)
         {
@@ -230,8 +613,81 @@ public class FrenchTranslationPlugin extends Plugin
         }
     }
 
+    @Subscribe
+    public void onGameStateChanged(GameStateChanged event)
+    {
+        if (event.getGameState() == GameState.LOGGED_IN)
+        {
+            sweepRequested = true;
+        }
+        else
+        {
+            // Queued widgets belong to the scene being left.
+            walker.clear();
+            sweeping = false;
+        }
+    }
+
+    @Subscribe
+    public void onWidgetLoaded(WidgetLoaded event)
+    {
+        dirtyGroups.set(event.getGroupId());
+        interfaceFilter.reset(event.getGroupId());
+    }
+
+    @Subscribe
+    public void onWidgetClosed(WidgetClosed event)
+    {
+        dirtyGroups.clear(event.getGroupId());
+        translatedWidgets.remove(event.getGroupId());
+        walker.removeGroup(event.getGroupId());
+        interfaceFilter.reset(event.getGroupId());
+        lastWidgetText.evictGroup(event.getGroupId());
+    }
+
+    @Subscribe
+    public void onScriptPostFired(ScriptPostFired event)
+    {
+        scriptsFired = true;
+
+        // A script run from a widget (a bank tab, a collection log page) redraws its group;
+        // a cold group is walked again instead of waiting for the next recheck.
+        final ScriptEvent scriptEvent = event.getScriptEvent();
+        final Widget source = scriptEvent != null ? scriptEvent.getSource() : null;
+        if (source != null)
+        {
+            final int group = WidgetUtil.componentToInterface(source.getId());
+            if (interfaceFilter.redrawn(group))
+            {
+                dirtyGroups.set(group);
+            }
+        }
+    }
+
     @Subscribe
     public void onGameTick(GameTick tick)
+    {
+        if (!TranslationMetrics.enabled)
+        {
+            translateChangedInterfaces();
+            return;
+        }
+
+        widgetsVisited = 0;
+        final long start = System.nanoTime();
+        translateChangedInterfaces();
+        TranslationMetrics.time(TranslationMetrics.Timer.GAME_TICK, System.nanoTime() - start);
+        TranslationMetrics.WIDGETS_PER_TICK.record(widgetsVisited);
+
+        if (++ticksSinceMetricsDump >= METRICS_DUMP_TICKS)
+        {
+            ticksSinceMetricsDump = 0;
+            final String log = TranslationMetrics.logWindow(TranslationMetrics.report());
+            executor.execute(() -> TranslationMetrics.write(METRICS_FILE, log));
+        }
+    }
+
+    private void translateChangedInterfaces()
     {
         if (client.getGameState() != GameState.LOGGED_IN)
         {
@@ -243,6 +699,52 @@ public class FrenchTranslationPlugin extends Plugin
             return;
         }
 
+        // Scripts rebuild interface contents without reloading them. A group that already
+        // produced a translation is walked again only once one of its translated widgets
+        // has been redrawn; other changes wait for the next full sweep.
+        if (scriptsFired)
+        {
+            translatedWidgets.collectChanged(dirtyGroups);
+            scriptsFired = false;
+        }
+
+        if (!sweeping && (sweepRequested || ++ticksSinceSweep >= config.fullSweepInterval()))
+        {
+            queueAllWidgets();
+            sweeping = true;
+            sweepRequested = false;
+            ticksSinceSweep = 0;
+        }
+
+        // Queued last so they are walked first: an interface that was just opened or redrawn
+        // is translated before the rest of a sweep that is still in progress.
+        for (int groupId = dirtyGroups.nextSetBit(0); groupId >= 0; groupId = dirtyGroups.nextSetBit(groupId + 1))
+        {
+            queueWidgetGroup(groupId);
+        }
+        dirtyGroups.clear();
+
+        if (walker.walk(config.widgetTimeBudget() * 1_000L, widgetVisitor) && sweeping)
+        {
+            sweeping = false;
+            interfaceFilter.sweepFinished();
+        }
+    }
+
+    private void resetWidgetTracking()
+    {
+        dirtyGroups.clear();
+        translatedWidgets.clear();
+        scriptsFired = false;
+        sweepRequested = true;
+        ticksSinceSweep = 0;
+        walker.clear();
+        sweeping = false;
+        interfaceFilter.clear();
+    }
+
+    private void queueAllWidgets()
+    {
         for (Widget root : client.getWidgetRoots())
         {
             if (root == null)
@@ -250,30 +752,66 @@ public class FrenchTranslationPlugin extends Plugin
                 continue;
             }
 
-            int iface = WidgetUtil.componentToInterface(root.getId());
-            if (iface == IFACE_CHATBOX || iface == IFACE_PRIVATE_CHAT || iface == IFACE_FRIENDS_LIST)
+            final int iface = WidgetUtil.componentToInterface(root.getId());
+            if (!isSkippedInterface(iface) && !interfaceFilter.isDenied(iface))
             {
-                continue;
+                walker.push(root, true);
             }
+        }
+    }
 
-            translateGeneralWidgetTree(root);
+    private void queueWidgetGroup(int groupId)
+    {
+        if (isSkippedInterface(groupId) || interfaceFilter.isDenied(groupId) || walker.isGroupPending(groupId))
+        {
+            return;
+        }
+
+        // Static components of a group are numbered contiguously from 0, so the whole
+        // group can be queued without recursing from the top-level roots. Nested
+        // interfaces are separate groups and get their own load event.
+        for (int childId = 0; ; childId++)
+        {
+            Widget w = client.getWidget(groupId, childId);
+            if (w == null)
+            {
+                return;
+            }
+            walker.pushGroupComponent(groupId, w);
         }
     }
 
+    private boolean visitWidget(Widget widget, boolean fullSweep)
+    {
+        final int iface = WidgetUtil.componentToInterface(widget.getId());
+        if (iface == IFACE_CHATBOX || interfaceFilter.skip(iface, fullSweep))
+        {
+            return false;
+        }
+
+        translateWidgetTextIfChanged(widget);
+        return true;
+    }
+
+    private static boolean isSkippedInterface(int iface)
+    {
+        return iface == IFACE_CHATBOX || iface == IFACE_PRIVATE_CHAT || iface == IFACE_FRIENDS_LIST;
+    }
+
     private void translateDialogWidgets()
     {
-        translateOneDialogWidget(CHATLEFT_GROUP, CHILD_NAME, true);
-        translateOneDialogWidget(CHATLEFT_GROUP, CHILD_TEXT, false);
-        translateOneDialogWidget(CHATLEFT_GROUP, CHILD_CONTINUE, false);
+        translateOneDialogWidget(CHATLEFT_GROUP, CHILD_NAME, true, dialogMemos[0]);
+        translateOneDialogWidget(CHATLEFT_GROUP, CHILD_TEXT, false, dialogMemos[1]);
+        translateOneDialogWidget(CHATLEFT_GROUP, CHILD_CONTINUE, false, dialogMemos[2]);
 
-        translateOneDialogWidget(CHATRIGHT_GROUP, CHILD_NAME, true);
-        translateOneDialogWidget(CHATRIGHT_GROUP, CHILD_TEXT, false);
-        translateOneDialogWidget(CHATRIGHT_GROUP, CHILD_CONTINUE, false);
+        translateOneDialogWidget(CHATRIGHT_GROUP, CHILD_NAME, true, dialogMemos[3]);
+        translateOneDialogWidget(CHATRIGHT_GROUP, CHILD_TEXT, false, dialogMemos[4]);
+        translateOneDialogWidget(CHATRIGHT_GROUP, CHILD_CONTINUE, false, dialogMemos[5]);
 
         translateChatmenuOptions();
     }
 
-    private void translateOneDialogWidget(int groupId, int childId, boolean isNameWidget)
+    private void translateOneDialogWidget(int groupId, int childId, boolean isNameWidget, DialogMemo memo)
     {
         Widget w = client.getWidget(groupId, childId);
         if (w == null || w.isHidden())
@@ -281,111 +819,129 @@ public class FrenchTranslationPlugin extends Plugin
             return;
         }
 
-        String raw = w.getText();
-        if (raw == null || raw.isEmpty())
-        {
-            return;
-        }
+        applyDialogTranslation(w, isNameWidget, true, memo);
+    }
 
-        String visible = TranslationFileLoader.visibleText(raw).trim();
-        if (visible.isEmpty())
+    private void translateChatmenuOptions()
+    {
+        Widget options = client.getWidget(CHATMENU_GROUP, 1);
+
+        if (options == null || options.isHidden())
         {
             return;
         }
 
-        if (TranslationFileLoader.normKey(visible).equals(CONTINUE_EN))
+        Widget[] kids = options.getDynamicChildren();
+        if (kids == null)
         {
-            w.setText(preserveOuterTagsFast(raw, CONTINUE_FR));
             return;
         }
 
-        if (isNameWidget)
+        if (chatmenuMemos.length < kids.length)
         {
-            if (config.translateNpcs())
+            DialogMemo[] grown = Arrays.copyOf(chatmenuMemos, kids.length);
+            for (int i = chatmenuMemos.length; i < grown.length; i++)
             {
-                String frNpc = FrenchNpcTranslations.translateNpcName(visible);
-                if (frNpc != null)
-                {
-                    w.setText(preserveOuterTagsFast(raw, frNpc));
-                }
+                grown[i] = new DialogMemo();
             }
-            return;
+            chatmenuMemos = grown;
         }
 
-        String fr = FrenchDialogTranslations.translateDialog(raw);
-        if (fr != null)
+        for (int i = 0; i < kids.length; i++)
         {
-            w.setText(preserveOuterTagsFast(raw, fr));
+            Widget k = kids[i];
+            if (k == null || k.isHidden())
+            {
+                continue;
+            }
+
+            applyDialogTranslation(k, false, false, chatmenuMemos[i]);
         }
     }
 
-    private void translateChatmenuOptions()
+    private void applyDialogTranslation(Widget w, boolean isNameWidget, boolean allowContinue, DialogMemo memo)
     {
-        Widget options = client.getWidget(CHATMENU_GROUP, 1);
-
-        if (options == null || options.isHidden())
+        String raw = w.getText();
+        if (raw == null || raw.isEmpty())
         {
             return;
         }
 
-        Widget[] kids = options.getDynamicChildren();
-        if (kids == null)
+        // The widget keeps the exact String we gave it, so a reference check covers most frames.
+        if (raw == memo.translated)
         {
             return;
         }
 
-        for (Widget k : kids)
+        final boolean remembered = raw.equals(memo.raw);
+        if (TranslationMetrics.enabled)
         {
-            if (k == null || k.isHidden())
-            {
-                continue;
-            }
-
-            String raw = k.getText();
-            if (raw == null || raw.isEmpty())
+            TranslationMetrics.count(remembered, TranslationMetrics.Counter.DIALOG_MEMO_HIT, TranslationMetrics.Counter.DIALOG_MEMO_MISS);
+        }
+        if (remembered)
+        {
+            if (memo.translated != null)
             {
-                continue;
+                w.setText(memo.translated);
             }
+            return;
+        }
 
-            String visible = TranslationFileLoader.visibleText(raw).trim();
-            if (visible.isEmpty())
-            {
-                continue;
-            }
+        String fr = translateDialogText(raw, isNameWidget, allowContinue);
+        memo.raw = raw;
+        memo.translated = fr;
 
-            String fr = FrenchDialogTranslations.translateDialog(raw);
-            if (fr != null)
-            {
-                k.setText(preserveOuterTagsFast(raw, fr));
-            }
+        if (fr != null)
+        {
+            w.setText(fr);
         }
     }
 
-    private void translateGeneralWidgetTree(Widget widget)
+    private String translateDialogText(String raw, boolean isNameWidget, boolean allowContinue)
     {
-        if (widget == null || widget.isHidden())
+        NormalizedKey key = TranslationFileLoader.normalize(raw);
+        if (key.isEmpty())
         {
-            return;
+            return null;
         }
 
-        int iface = WidgetUtil.componentToInterface(widget.getId());
-        if (iface == IFACE_CHATBOX)
+        if (allowContinue && key.contentEquals(CONTINUE_EN))
         {
-            return;
+            return tagEnvelope.wrap(raw, CONTINUE_FR);
         }
 
-        translateWidgetTextIfChanged(widget);
-
-        Widget[] kids;
+        if (isNameWidget)
+        {
+            if (config.translateNpcs())
+            {
+                String frNpc = FrenchNpcTranslations.translateNpcName(raw);
+                if (frNpc != null)
+                {
+                    return tagEnvelope.wrap(raw, frNpc);
+                }
+            }
+            return null;
+        }
 
-        kids = widget.getDynamicChildren();
-        if (kids != null) for (Widget w : kids) translateGeneralWidgetTree(w);
+        String fr = FrenchDialogTranslations.translateDialog(raw);
+        if (fr != null)
+        {
+            return tagEnvelope.wrap(raw, fr);
+        }
 
-        kids = widget.getStaticChildren();
-        if (kids != null) for (Widget w : kids) translateGeneralWidgetTree(w);
+        return null;
+    }
 
-        kids = widget.getNestedChildren();
-        if (kids != null) for (Widget w : kids) translateGeneralWidgetTree(w);
+    private void clearDialogMemos()
+    {
+        for (DialogMemo memo : dialogMemos)
+        {
+            memo.clear();
+        }
+        for (DialogMemo memo : chatmenuMemos)
+        {
+            memo.clear();
+        }
     }
 
     private void translateWidgetTextIfChanged(Widget widget)
@@ -396,9 +952,15 @@ public class FrenchTranslationPlugin extends Plugin
             return;
         }
 
+        widgetsVisited++;
+
         final int id = widget.getId();
-        final String prev = lastWidgetText.get(id);
-        if (rawText.equals(prev))
+        final boolean unchanged = lastWidgetText.matches(id, rawText);
+        if (TranslationMetrics.enabled)
+        {
+            TranslationMetrics.count(unchanged, TranslationMetrics.Counter.WIDGET_CACHE_HIT, TranslationMetrics.Counter.WIDGET_CACHE_MISS);
+        }
+        if (unchanged)
         {
             return;
         }
@@ -413,6 +975,7 @@ public class FrenchTranslationPlugin extends Plugin
             {
                 widget.setText(labelOut);
                 lastWidgetText.put(id, labelOut);
+                markTranslated(widget, iface, labelOut);
                 return;
             }
 
@@ -422,9 +985,10 @@ public class FrenchTranslationPlugin extends Plugin
                 String frQuest = FrenchQuestTranslations.translateQuestName(visible);
                 if (frQuest != null)
                 {
-                    String newText = preserveOuterTagsFast(rawText, frQuest);
+                    String newText = tagEnvelope.wrap(rawText, frQuest);
                     widget.setText(newText);
                     lastWidgetText.put(id, newText);
+                    markTranslated(widget, iface, newText);
                     return;
                 }
             }
@@ -433,92 +997,58 @@ public class FrenchTranslationPlugin extends Plugin
             return;
         }
 
-        String cleanVisible = TranslationFileLoader.visibleText(rawText).trim();
-        if (cleanVisible.isEmpty())
+        final PhraseSegmenter segmenter = widgetSegmenter;
+        if (segmenter == null)
         {
             lastWidgetText.put(id, rawText);
             return;
         }
 
-        String fr = null;
-
-        if (config.translateNpcs())
+        // Keyed on the words and phrases the segmenter reads, so the same text in another
+        // colour or wrapped differently is a known miss too.
+        final long fingerprint = segmenter.fingerprint(rawText);
+        final boolean rejected = widgetTextMisses.contains(fingerprint);
+        if (TranslationMetrics.enabled)
         {
-            fr = FrenchNpcTranslations.translateNpcName(cleanVisible);
+            TranslationMetrics.count(rejected, TranslationMetrics.Counter.TEXT_FILTER_REJECT, TranslationMetrics.Counter.TEXT_FILTER_PASS);
         }
-
-        if (fr == null && config.translateItems())
+        if (rejected)
         {
-            fr = FrenchItemTranslations.translateItemName(cleanVisible);
+            lastWidgetText.put(id, rawText);
+            return;
         }
 
-        if (fr != null)
+        // Names anywhere in the text are translated, not just text that is exactly one name.
+        final String newText = segmenter.translate(rawText, config.translateNpcs(), config.translateItems());
+
+        if (newText != null)
         {
-            String newText = preserveOuterTagsFast(rawText, fr);
             widget.setText(newText);
             lastWidgetText.put(id, newText);
+            markTranslated(widget, iface, newText);
         }
         else
         {
+            widgetTextMisses.add(fingerprint);
             lastWidgetText.put(id, rawText);
         }
     }
 
-    private static String preserveOuterTagsFast(String original, String replacement)
+    private void markTranslated(Widget widget, int iface, String text)
     {
-        if (original == null)
-        {
-            return replacement;
-        }
-
-        if (original.indexOf('<') == -1)
-        {
-            return replacement;
-        }
-
-        int i = 0;
-        StringBuilder pre = new StringBuilder();
-        while (i < original.length() && original.charAt(i) == '<')
-        {
-            int end = original.indexOf('>', i);
-            if (end == -1) break;
-
-            String tag = original.substring(i, end + 1);
-            if (tag.startsWith("</"))
-            {
-                break;
-            }
-
-            pre.append(tag);
-            i = end + 1;
-        }
-
-        int j = original.length();
-        StringBuilder post = new StringBuilder();
-        while (j > 0)
-        {
-            int start = original.lastIndexOf('<', j - 1);
-            if (start == -1) break;
-
-            int end = original.indexOf('>', start);
-            if (end == -1) break;
-
-            String tag = original.substring(start, end + 1);
-            if (!tag.startsWith("</"))
-            {
-                break;
-            }
+        translatedWidgets.add(iface, widget, text);
+        interfaceFilter.translated(iface);
+    }
 
-            post.insert(0, tag);
-            j = start;
-        }
+    private static final class DialogMemo
+    {
+        private String raw;
+        private String translated;
 
-        if (pre.length() == 0 && post.length() == 0)
+        void clear()
         {
-            return replacement;
+            raw = null;
+            translated = null;
         }
-
-        return pre + replacement + post;
     }
 }
-
@@ -0,0 +1,78 @@
+package com.playercoder1;
+
+import java.util.Arrays;
+import java.util.function.UnaryOperator;
+
+/**
+ * French names indexed directly by item or NPC id. An id is resolved through the name
+ * dictionaries the first time it is seen and then answered with a single array read, so
+ * the item composition and NPC menu paths no longer normalize names on every call.
+ * Ids without a translation are remembered too. Only used from the client thread.
+ */
+final class IdTranslationTable
+{
+    // Identity sentinel for "resolved, no translation"; never handed out.
+    private static final String NONE = new String("");
+
+    private static final int MAX_ID = 1 << 17;
+
+    private String[] byId = new String[0];
+
+    String resolve(int id, String englishName, UnaryOperator<String> translator)
+    {
+        if (id < 0 || id >= MAX_ID)
+        {
+            return translator.apply(englishName);
+        }
+
+        if (id < byId.length)
+        {
+            String cached = byId[id];
+            if (cached != null)
+            {
+                return cached == NONE ? null : cached;
+            }
+        }
+
+        String fr = translator.apply(englishName);
+        put(id, fr);
+        return fr;
+    }
+
+    /**
+     * The stored translation of {@code id}, or {@code englishName} translated without
+     * storing it if the id was not resolved yet. For callers whose name may not be the
+     * real name of the id, such as menu text.
+     */
+    String lookup(int id, String englishName, UnaryOperator<String> translator)
+    {
+        if (id >= 0 && id < byId.length)
+        {
+            String cached = byId[id];
+            if (cached != null)
+            {
+                return cached == NONE ? null : cached;
+            }
+        }
+        return translator.apply(englishName);
+    }
+
+    void put(int id, String fr)
+    {
+        if (id < 0 || id >= MAX_ID)
+        {
+            return;
+        }
+
+        if (id >= byId.length)
+        {
+            byId = Arrays.copyOf(byId, Math.min(MAX_ID, Integer.highestOneBit(Math.max(id, 1023)) << 1));
+        }
+        byId[id] = fr != null ? fr : NONE;
+    }
+
+    void clear()
+    {
+        Arrays.fill(byId, null);
+    }
+}
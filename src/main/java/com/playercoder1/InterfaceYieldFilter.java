@@ -0,0 +1,229 @@
+package com.playercoder1;
+
+import java.util.Arrays;
+
+/**
+ * Learns which interface groups never produce a translation (minimap, orbs, XP drops, the
+ * stats grid) so the widget walk can skip them. A group that is walked through
+ * {@value #COLD_AFTER_SWEEPS} full sweeps in a row without yielding a translation turns
+ * cold and is only walked again on every {@value #RECHECK_EVERY_SWEEPS}th sweep, or as soon
+ * as it is reloaded or a script redraws it. Groups that host nested interfaces never turn cold, since skipping
+ * them would hide everything inside. Users can pin groups either way with allow and deny
+ * lists. Only used from the client thread.
+ */
+final class InterfaceYieldFilter
+{
+    static final int COLD_AFTER_SWEEPS = 5;
+    static final int RECHECK_EVERY_SWEEPS = 30;
+
+    private static final int MAX_GROUP = 1 << 16;
+
+    private static final byte VISITED = 1;
+    private static final byte YIELDED = 1 << 1;
+    private static final byte HOST = 1 << 2;
+    private static final byte COLD = 1 << 3;
+    private static final byte ALLOWED = 1 << 4;
+    private static final byte DENIED = 1 << 5;
+
+    private static final byte LEARNED = VISITED | YIELDED | HOST | COLD;
+
+    private byte[] flags = new byte[0];
+    private byte[] zeroSweeps = new byte[0];
+    private int sweeps;
+    private boolean rechecking;
+    private boolean adaptive = true;
+
+    /**
+     * Replaces the user lists and turns cold-group learning on or off. Turning it off
+     * forgets what was learned.
+     */
+    void configure(int[] allowed, int[] denied, boolean adaptive)
+    {
+        for (int i = 0; i < flags.length; i++)
+        {
+            flags[i] &= ~(ALLOWED | DENIED);
+        }
+        for (int group : allowed)
+        {
+            set(group, ALLOWED);
+        }
+        for (int group : denied)
+        {
+            set(group, DENIED);
+        }
+
+        if (this.adaptive && !adaptive)
+        {
+            clear();
+        }
+        this.adaptive = adaptive;
+    }
+
+    /**
+     * Whether the walk should skip this group right now. Also notes the group as walked
+     * when it is not skipped and the walk is part of a full sweep; walks of single groups
+     * do not count towards turning it cold.
+     */
+    boolean skip(int group, boolean fullSweep)
+    {
+        if (group >= 0 && group < flags.length)
+        {
+            final byte f = flags[group];
+            if ((f & DENIED) != 0 || ((f & COLD) != 0 && !rechecking))
+            {
+                return true;
+            }
+        }
+
+        if (fullSweep)
+        {
+            set(group, VISITED);
+        }
+        return false;
+    }
+
+    boolean isDenied(int group)
+    {
+        return group >= 0 && group < flags.length && (flags[group] & DENIED) != 0;
+    }
+
+    void translated(int group)
+    {
+        set(group, YIELDED);
+    }
+
+    void hostsInterface(int group)
+    {
+        set(group, HOST);
+    }
+
+    /**
+     * The group was (re)loaded or closed: its contents are new, so forget what was learned.
+     */
+    void reset(int group)
+    {
+        if (group >= 0 && group < flags.length)
+        {
+            flags[group] &= ~LEARNED;
+            zeroSweeps[group] = 0;
+        }
+    }
+
+    /**
+     * A script changed the group's contents in place. Returns true if the group was cold,
+     * in which case it is warm again and has to be walked.
+     */
+    boolean redrawn(int group)
+    {
+        if (group < 0 || group >= flags.length || (flags[group] & COLD) == 0)
+        {
+            return false;
+        }
+
+        flags[group] &= ~COLD;
+        zeroSweeps[group] = 0;
+        return true;
+    }
+
+    /**
+     * Called after every completed full sweep; counts it against the groups it walked.
+     */
+    void sweepFinished()
+    {
+        for (int g = 0; g < flags.length; g++)
+        {
+            final byte f = flags[g];
+            if ((f & VISITED) == 0)
+            {
+                continue;
+            }
+
+            if ((f & (YIELDED | HOST | ALLOWED)) != 0 || !adaptive)
+            {
+                zeroSweeps[g] = 0;
+                flags[g] = (byte) (f & ~(VISITED | COLD));
+            }
+            else if (zeroSweeps[g] < COLD_AFTER_SWEEPS && ++zeroSweeps[g] == COLD_AFTER_SWEEPS)
+            {
+                flags[g] = (byte) ((f & ~VISITED) | COLD);
+            }
+            else
+            {
+                flags[g] = (byte) (f & ~VISITED);
+            }
+        }
+
+        rechecking = ++sweeps % RECHECK_EVERY_SWEEPS == 0;
+    }
+
+    /**
+     * Forgets every learned group; the allow and deny lists are kept.
+     */
+    void clear()
+    {
+        for (int i = 0; i < flags.length; i++)
+        {
+            flags[i] &= ~LEARNED;
+        }
+        Arrays.fill(zeroSweeps, (byte) 0);
+        sweeps = 0;
+        rechecking = false;
+    }
+
+    /**
+     * Parses a comma or space separated list of group ids, ignoring anything that is not one.
+     */
+    static int[] parseGroups(String list)
+    {
+        if (list == null || list.isEmpty())
+        {
+            return new int[0];
+        }
+
+        int[] out = new int[8];
+        int n = 0;
+        int value = -1;
+        for (int i = 0; i <= list.length(); i++)
+        {
+            final char c = i < list.length() ? list.charAt(i) : ',';
+            if (c >= '0' && c <= '9')
+            {
+                value = value < 0 ? c - '0' : Math.min(MAX_GROUP, value * 10 + (c - '0'));
+            }
+            else if (c == ',' || c == ' ' || c == ';' || c == '\n' || c == '\t')
+            {
+                if (value >= 0 && value < MAX_GROUP)
+                {
+                    if (n == out.length)
+                    {
+                        out = Arrays.copyOf(out, n * 2);
+                    }
+                    out[n++] = value;
+                }
+                value = -1;
+            }
+            else
+            {
+                // not a group id; drop the whole token
+                value = MAX_GROUP;
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    private void set(int group, byte flag)
+    {
+        if (group < 0 || group >= MAX_GROUP)
+        {
+            return;
+        }
+
+        if (group >= flags.length)
+        {
+            final int size = Math.min(MAX_GROUP, Integer.highestOneBit(Math.max(group, 1023)) << 1);
+            flags = Arrays.copyOf(flags, size);
+            zeroSweeps = Arrays.copyOf(zeroSweeps, size);
+        }
+        flags[group] |= flag;
+    }
+}
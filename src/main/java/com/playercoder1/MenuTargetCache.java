@@ -0,0 +1,174 @@
+package com.playercoder1;
+
+import java.util.Arrays;
+
+/**
+ * Finished menu targets keyed by what the target refers to (NPC id, item id or nothing) and
+ * the raw tagged target text, so hovering the same things again skips tag stripping, the
+ * combat level parsing and the dictionary lookups. Targets without a translation are cached
+ * too, as the raw text itself. Bounded like {@link WidgetTextCache}, with CLOCK eviction.
+ */
+final class MenuTargetCache
+{
+    static final byte KIND_OTHER = 1;
+    static final byte KIND_NPC = 2;
+    static final byte KIND_ITEM = 3;
+
+    private static final byte FREE = 0;
+
+    private final int maxEntries;
+    private final int mask;
+    private final byte[] kinds;
+    private final int[] ids;
+    private final int[] hashes;
+    private final String[] targets;
+    private final String[] results;
+    private final boolean[] referenced;
+
+    private int size;
+    private int hand;
+
+    MenuTargetCache(int maxEntries)
+    {
+        this.maxEntries = maxEntries;
+
+        int capacity = Integer.highestOneBit(Math.max(maxEntries, 8) * 2 - 1) << 1;
+        this.mask = capacity - 1;
+        this.kinds = new byte[capacity];
+        this.ids = new int[capacity];
+        this.hashes = new int[capacity];
+        this.targets = new String[capacity];
+        this.results = new String[capacity];
+        this.referenced = new boolean[capacity];
+    }
+
+    /**
+     * Returns the cached target to show for {@code target}, which is {@code target}'s own text
+     * when there is no translation, or null when nothing is cached yet.
+     */
+    String get(byte kind, int id, String target)
+    {
+        int h = hash(kind, id, target);
+        int slot = h & mask;
+        while (kinds[slot] != FREE)
+        {
+            if (hashes[slot] == h && kinds[slot] == kind && ids[slot] == id && targets[slot].equals(target))
+            {
+                referenced[slot] = true;
+                return results[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    void put(byte kind, int id, String target, String result)
+    {
+        int h = hash(kind, id, target);
+        int slot = h & mask;
+        while (kinds[slot] != FREE)
+        {
+            if (hashes[slot] == h && kinds[slot] == kind && ids[slot] == id && targets[slot].equals(target))
+            {
+                results[slot] = result;
+                referenced[slot] = true;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        if (size >= maxEntries)
+        {
+            evictOne();
+
+            slot = h & mask;
+            while (kinds[slot] != FREE)
+            {
+                slot = (slot + 1) & mask;
+            }
+        }
+
+        kinds[slot] = kind;
+        ids[slot] = id;
+        hashes[slot] = h;
+        targets[slot] = target;
+        results[slot] = result;
+        referenced[slot] = true;
+        size++;
+    }
+
+    void clear()
+    {
+        Arrays.fill(kinds, FREE);
+        Arrays.fill(targets, null);
+        Arrays.fill(results, null);
+        Arrays.fill(referenced, false);
+        size = 0;
+        hand = 0;
+    }
+
+    int size()
+    {
+        return size;
+    }
+
+    private void evictOne()
+    {
+        while (true)
+        {
+            int slot = hand;
+            hand = (hand + 1) & mask;
+
+            if (kinds[slot] == FREE)
+            {
+                continue;
+            }
+
+            if (referenced[slot])
+            {
+                referenced[slot] = false;
+                continue;
+            }
+
+            remove(slot);
+            return;
+        }
+    }
+
+    private void remove(int slot)
+    {
+        // Same backward-shift deletion as WidgetTextCache.
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (kinds[next] != FREE)
+        {
+            int want = hashes[next] & mask;
+            boolean movable = hole <= next
+                    ? want <= hole || want > next
+                    : want <= hole && want > next;
+            if (movable)
+            {
+                kinds[hole] = kinds[next];
+                ids[hole] = ids[next];
+                hashes[hole] = hashes[next];
+                targets[hole] = targets[next];
+                results[hole] = results[next];
+                referenced[hole] = referenced[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+
+        kinds[hole] = FREE;
+        targets[hole] = null;
+        results[hole] = null;
+        referenced[hole] = false;
+        size--;
+    }
+
+    private static int hash(byte kind, int id, String target)
+    {
+        int h = (target.hashCode() * 31 + id) * 0x9E3779B9 + kind;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,118 @@
+package com.playercoder1;
+
+import java.util.Arrays;
+
+/**
+ * A dictionary key built in place by {@link TranslationFileLoader#normalize(String)}: tags
+ * removed, whitespace folded to single spaces, lowercased and trimmed. The hash is the
+ * {@link String#hashCode()} of the equivalent key String, so it can be looked up against
+ * String keys without ever creating one.
+ */
+public final class NormalizedKey implements CharSequence
+{
+    private char[] chars = new char[64];
+    private int length;
+    private int hash;
+
+    @Override
+    public int length()
+    {
+        return length;
+    }
+
+    public boolean isEmpty()
+    {
+        return length == 0;
+    }
+
+    @Override
+    public char charAt(int index)
+    {
+        return chars[index];
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end)
+    {
+        return new String(chars, start, end - start);
+    }
+
+    public int hash()
+    {
+        return hash;
+    }
+
+    /**
+     * 64-bit hash of the first {@code len} chars of {@code s}, for caches where a 32-bit hash
+     * would collide too often.
+     */
+    static long fingerprint(CharSequence s, int len)
+    {
+        // FNV-1a over the chars, then a murmur3 finalizer so every bit depends on every char
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < len; i++)
+        {
+            h ^= s.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        return h ^ (h >>> 33);
+    }
+
+    public boolean contentEquals(String s)
+    {
+        if (s.length() != length)
+        {
+            return false;
+        }
+
+        for (int i = 0; i < length; i++)
+        {
+            if (s.charAt(i) != chars[i])
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString()
+    {
+        return new String(chars, 0, length);
+    }
+
+    void reset()
+    {
+        length = 0;
+        hash = 0;
+    }
+
+    /**
+     * Cuts the key back to, or restores it up to, {@code newLength} chars of what was
+     * appended since the last reset.
+     */
+    void setLength(int newLength)
+    {
+        length = newLength;
+        int h = 0;
+        for (int i = 0; i < newLength; i++)
+        {
+            h = 31 * h + chars[i];
+        }
+        hash = h;
+    }
+
+    void append(char c)
+    {
+        if (length == chars.length)
+        {
+            chars = Arrays.copyOf(chars, length * 2);
+        }
+        chars[length++] = c;
+        hash = 31 * hash + c;
+    }
+}
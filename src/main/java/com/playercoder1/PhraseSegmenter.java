@@ -0,0 +1,404 @@
+package com.playercoder1;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Finds every NPC and item name inside a piece of interface text and rewrites just those
+ * words, so "Bronze dagger x 5", "Level 12: Goblin" or a tooltip sentence get their names
+ * translated while the numbers, punctuation and tags around them stay as they are.
+ *
+ * The dictionary keys are stored as a trie over words. Text is split into words in one
+ * pass; from each word the longest key starting there is taken, and scanning resumes after
+ * it, so the cost is linear in the text length times the longest key (a handful of words).
+ * Tags other than line breaks end a phrase and are copied through untouched, and a word
+ * ending in ':' ends one too, so the name after "Level 12:" stands on its own. A key of
+ * several words matches anywhere in a phrase, but a one-word key ("Key", "Fire", "Logs")
+ * only when it is the whole phrase, as in a tag-delimited name or "Level 12: Goblin", so
+ * ordinary words in a sentence are left alone. A word may also match without trailing
+ * punctuation or a "(4)" or "(i)" marker, which then stays after the translation.
+ * The trie is immutable once built, but the word buffers are reused between calls, so an
+ * instance belongs to one thread. Lookups allocate nothing unless a name is found.
+ */
+final class PhraseSegmenter
+{
+    private static final int ROOT = 0;
+
+    // word id -> lowercase word, and an open-addressing index over them (id + 1, 0 = empty)
+    private final String[] words;
+    private final int[] wordHashes;
+    private final int[] wordIndex;
+
+    // trie edges: (parent << 32 | word id) -> child node, 0 = empty slot
+    private final long[] edgeKeys;
+    private final int[] edgeChildren;
+
+    // per node: the translation of the key ending there, if any
+    private final String[] npcValues;
+    private final String[] itemValues;
+
+    private int[] tokenStart = new int[32];
+    private int[] tokenEnd = new int[32];
+    private boolean[] tokenBreak = new boolean[32];
+    private final StringBuilder phraseKey = new StringBuilder(64);
+
+    private PhraseSegmenter(String[] words, int[] wordHashes, int[] wordIndex,
+                            long[] edgeKeys, int[] edgeChildren, String[] npcValues, String[] itemValues)
+    {
+        this.words = words;
+        this.wordHashes = wordHashes;
+        this.wordIndex = wordIndex;
+        this.edgeKeys = edgeKeys;
+        this.edgeChildren = edgeChildren;
+        this.npcValues = npcValues;
+        this.itemValues = itemValues;
+    }
+
+    static PhraseSegmenter of(TranslationDictionary npcs, TranslationDictionary items)
+    {
+        Map<String, Integer> wordIds = new HashMap<>();
+        Map<Long, Integer> edges = new HashMap<>();
+        Map<Integer, String> npcByNode = new HashMap<>();
+        Map<Integer, String> itemByNode = new HashMap<>();
+
+        int[] nodes = {1};
+        addAll(items, wordIds, edges, itemByNode, nodes);
+        addAll(npcs, wordIds, edges, npcByNode, nodes);
+
+        String[] words = new String[wordIds.size()];
+        int[] wordHashes = new int[words.length];
+        for (Map.Entry<String, Integer> e : wordIds.entrySet())
+        {
+            words[e.getValue()] = e.getKey();
+            wordHashes[e.getValue()] = e.getKey().hashCode();
+        }
+        int[] wordIndex = TranslationDictionary.buildIndex(wordHashes, words.length, TranslationDictionary.indexCapacity(words.length));
+
+        int capacity = TranslationDictionary.indexCapacity(edges.size());
+        long[] edgeKeys = new long[capacity];
+        int[] edgeChildren = new int[capacity];
+        for (Map.Entry<Long, Integer> e : edges.entrySet())
+        {
+            int slot = edgeSlot(e.getKey(), capacity - 1);
+            while (edgeChildren[slot] != 0)
+            {
+                slot = (slot + 1) & (capacity - 1);
+            }
+            edgeKeys[slot] = e.getKey();
+            edgeChildren[slot] = e.getValue();
+        }
+
+        String[] npcValues = new String[nodes[0]];
+        String[] itemValues = new String[nodes[0]];
+        npcByNode.forEach((node, fr) -> npcValues[node] = fr);
+        itemByNode.forEach((node, fr) -> itemValues[node] = fr);
+
+        return new PhraseSegmenter(words, wordHashes, wordIndex, edgeKeys, edgeChildren, npcValues, itemValues);
+    }
+
+    private static void addAll(TranslationDictionary dict, Map<String, Integer> wordIds, Map<Long, Integer> edges,
+                               Map<Integer, String> values, int[] nodes)
+    {
+        if (dict == null)
+        {
+            return;
+        }
+
+        for (int i = 0; i < dict.size(); i++)
+        {
+            int node = ROOT;
+            for (String word : dict.keyAt(i).split(" "))
+            {
+                Integer wordId = wordIds.computeIfAbsent(word, w -> wordIds.size());
+                long edge = ((long) node << 32) | wordId;
+                Integer child = edges.get(edge);
+                if (child == null)
+                {
+                    child = nodes[0]++;
+                    edges.put(edge, child);
+                }
+                node = child;
+            }
+            values.put(node, dict.valueAt(i));
+        }
+    }
+
+    /**
+     * Returns {@code text} with every name found replaced, or null if that changes nothing.
+     */
+    String translate(String text, boolean npcs, boolean items)
+    {
+        if (!npcs && !items)
+        {
+            return null;
+        }
+
+        final int tokens = tokenize(text);
+        StringBuilder out = null;
+        int copied = 0;
+
+        for (int t = 0; t < tokens; )
+        {
+            int node = ROOT;
+            int bestToken = -1;
+            int bestEnd = 0;
+            String best = null;
+
+            // a one-word key only counts when the word is its whole phrase
+            final boolean alone = tokenBreak[t] && (t + 1 == tokens || tokenBreak[t + 1]);
+
+            for (int u = t; u < tokens && (u == t || !tokenBreak[u]); u++)
+            {
+                final int start = tokenStart[u];
+                final int end = tokenEnd[u];
+                final boolean counts = u > t || alone;
+
+                // the word without trailing punctuation or dose count, as the last word of a key
+                final int stripped = strippedEnd(text, start, end);
+                if (stripped < end)
+                {
+                    String fr = counts ? value(child(node, text, start, stripped), npcs, items) : null;
+                    if (fr != null)
+                    {
+                        bestToken = u;
+                        bestEnd = stripped;
+                        best = fr;
+                    }
+                }
+
+                node = child(node, text, start, end);
+                if (node < 0)
+                {
+                    break;
+                }
+
+                String fr = counts ? value(node, npcs, items) : null;
+                if (fr != null)
+                {
+                    bestToken = u;
+                    bestEnd = end;
+                    best = fr;
+                }
+            }
+
+            if (best == null)
+            {
+                t++;
+                continue;
+            }
+
+            if (out == null)
+            {
+                out = new StringBuilder(text.length() + 16);
+            }
+            out.append(text, copied, tokenStart[t]).append(best);
+            copied = bestEnd;
+            t = bestToken + 1;
+        }
+
+        if (out == null)
+        {
+            return null;
+        }
+
+        // names that are the same in French
+        final String translated = out.append(text, copied, text.length()).toString();
+        return translated.equals(text) ? null : translated;
+    }
+
+    /**
+     * 64-bit fingerprint of {@code text} as {@link #translate} reads it: the words, lowercased,
+     * with a space between words of one phrase and a '|' where a phrase breaks. The same
+     * name in another colour, after a line break or with other spacing gets the same
+     * fingerprint, while text whose tags split it into other phrases does not.
+     */
+    long fingerprint(String text)
+    {
+        final int tokens = tokenize(text);
+        final StringBuilder key = phraseKey;
+        key.setLength(0);
+        for (int t = 0; t < tokens; t++)
+        {
+            if (t > 0)
+            {
+                key.append(tokenBreak[t] ? '|' : ' ');
+            }
+            for (int i = tokenStart[t]; i < tokenEnd[t]; i++)
+            {
+                key.append(Character.toLowerCase(text.charAt(i)));
+            }
+        }
+        return NormalizedKey.fingerprint(key, key.length());
+    }
+
+    private String value(int node, boolean npcs, boolean items)
+    {
+        if (node <= ROOT)
+        {
+            return null;
+        }
+
+        String fr = npcs ? npcValues[node] : null;
+        return fr != null || !items ? fr : itemValues[node];
+    }
+
+    /**
+     * Splits {@code text} into words at whitespace and tags; a word after a tag other than a
+     * line break, or after a word ending in ':', starts a new phrase. Returns the number of
+     * words.
+     */
+    private int tokenize(String text)
+    {
+        final int n = text.length();
+        // a '<' with no '>' after it is plain text
+        final int lastClose = text.lastIndexOf('>');
+        int count = 0;
+        boolean pendingBreak = true;
+
+        int i = 0;
+        while (i < n)
+        {
+            char c = text.charAt(i);
+            if (c == '<' && i < lastClose)
+            {
+                int close = text.indexOf('>', i);
+                // a line break inside a wrapped name does not end it; any other tag does
+                if (!TranslationFileLoader.isLineBreak(text, i, close))
+                {
+                    pendingBreak = true;
+                }
+                i = close + 1;
+                continue;
+            }
+
+            if (c == '\u00A0' || Character.isWhitespace(c))
+            {
+                i++;
+                continue;
+            }
+
+            int start = i;
+            while (i < n)
+            {
+                c = text.charAt(i);
+                if ((c == '<' && i < lastClose) || c == '\u00A0' || Character.isWhitespace(c))
+                {
+                    break;
+                }
+                i++;
+            }
+
+            if (count == tokenStart.length)
+            {
+                tokenStart = Arrays.copyOf(tokenStart, count * 2);
+                tokenEnd = Arrays.copyOf(tokenEnd, count * 2);
+                tokenBreak = Arrays.copyOf(tokenBreak, count * 2);
+            }
+            tokenStart[count] = start;
+            tokenEnd[count] = i;
+            tokenBreak[count] = pendingBreak;
+            pendingBreak = text.charAt(i - 1) == ':';
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * End of the word once trailing punctuation or a dose, charge or variant marker is taken
+     * off, or {@code end} if there is neither.
+     */
+    private static int strippedEnd(String text, int start, int end)
+    {
+        int e = end;
+        while (e > start && isTrailingPunctuation(text.charAt(e - 1)))
+        {
+            e--;
+        }
+
+        final int marker = FrenchItemTranslations.variantSuffixStart(text, start, e);
+        if (marker > start)
+        {
+            e = marker;
+        }
+        return e > start ? e : end;
+    }
+
+    private static boolean isTrailingPunctuation(char c)
+    {
+        return c == '.' || c == ',' || c == ':' || c == ';' || c == '!' || c == '?';
+    }
+
+    private int child(int node, String text, int start, int end)
+    {
+        if (node < 0)
+        {
+            return -1;
+        }
+
+        final int word = wordId(text, start, end);
+        if (word < 0)
+        {
+            return -1;
+        }
+
+        final long key = ((long) node << 32) | word;
+        final int mask = edgeKeys.length - 1;
+        int slot = edgeSlot(key, mask);
+        int child;
+        while ((child = edgeChildren[slot]) != 0)
+        {
+            if (edgeKeys[slot] == key)
+            {
+                return child;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private int wordId(String text, int start, int end)
+    {
+        int h = 0;
+        for (int i = start; i < end; i++)
+        {
+            h = 31 * h + Character.toLowerCase(text.charAt(i));
+        }
+
+        final int mask = wordIndex.length - 1;
+        int slot = (h ^ (h >>> 16)) & mask;
+        int e;
+        while ((e = wordIndex[slot]) != 0)
+        {
+            if (wordHashes[e - 1] == h && wordEquals(words[e - 1], text, start, end))
+            {
+                return e - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private static boolean wordEquals(String word, String text, int start, int end)
+    {
+        if (word.length() != end - start)
+        {
+            return false;
+        }
+
+        for (int i = 0; i < word.length(); i++)
+        {
+            if (word.charAt(i) != Character.toLowerCase(text.charAt(start + i)))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int edgeSlot(long key, int mask)
+    {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 32) & mask;
+    }
+}
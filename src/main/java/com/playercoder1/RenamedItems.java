@@ -0,0 +1,60 @@
+package com.playercoder1;
+
+import java.util.Arrays;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * English names of the item compositions the plugin renamed, indexed by item id, so they can
+ * be put back when the plugin stops or renamed again when the dictionaries change. The ids
+ * are also kept in an int list in the order they were renamed, so neither lookups nor walks
+ * box anything. Only used from the client thread.
+ */
+final class RenamedItems
+{
+    private static final int MAX_ID = 1 << 17;
+
+    private String[] englishById = new String[0];
+    private int[] ids = new int[256];
+    private int size;
+
+    /**
+     * Remembers {@code englishName} as the name of {@code id}, unless one is already known.
+     * Returns false for ids out of range, which then must not be renamed.
+     */
+    boolean add(int id, String englishName)
+    {
+        if (id < 0 || id >= MAX_ID)
+        {
+            return false;
+        }
+
+        if (id >= englishById.length)
+        {
+            englishById = Arrays.copyOf(englishById, Math.min(MAX_ID, Integer.highestOneBit(Math.max(id, 1023)) << 1));
+        }
+        if (englishById[id] == null)
+        {
+            englishById[id] = englishName;
+            if (size == ids.length)
+            {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+        return true;
+    }
+
+    void forEach(ObjIntConsumer<String> action)
+    {
+        for (int i = 0; i < size; i++)
+        {
+            action.accept(englishById[ids[i]], ids[i]);
+        }
+    }
+
+    void clear()
+    {
+        Arrays.fill(englishById, null);
+        size = 0;
+    }
+}
@@ -0,0 +1,141 @@
+package com.playercoder1;
+
+import java.util.Arrays;
+
+/**
+ * Puts a translation inside the outer tags of the text it replaces, so
+ * {@code <col=ff9040>Shark</col>} becomes {@code <col=ff9040>Requin</col>}. The leading
+ * opening tags and trailing closing tags are located as spans of the original text without
+ * copying them, and the output is built with one presized builder. Outputs are remembered
+ * per translation: when the same translation comes back inside the same tags, as it does
+ * for a coloured name repeated across a list, the earlier String is handed out again.
+ * Only used from one thread.
+ */
+final class TagEnvelope
+{
+    private static final int CACHE_SIZE = 256;
+
+    // spans of the text being wrapped: [0, prefixEnd) and the closing tags as start/end pairs
+    private int prefixEnd;
+    private int[] suffix = new int[8];
+    private int suffixSpans;
+    private int suffixLength;
+
+    private final String[] cachedReplacement = new String[CACHE_SIZE];
+    private final String[] cachedOutput = new String[CACHE_SIZE];
+
+    String wrap(String original, String replacement)
+    {
+        if (original == null || original.indexOf('<') == -1)
+        {
+            return replacement;
+        }
+
+        parse(original);
+        if (prefixEnd == 0 && suffixSpans == 0)
+        {
+            return replacement;
+        }
+
+        final int h = replacement.hashCode();
+        final int slot = (h ^ (h >>> 16)) & (CACHE_SIZE - 1);
+        final String cached = cachedOutput[slot];
+        if (cached != null && replacement.equals(cachedReplacement[slot]) && sameEnvelope(original, cached, replacement.length()))
+        {
+            return cached;
+        }
+
+        StringBuilder sb = new StringBuilder(prefixEnd + replacement.length() + suffixLength);
+        sb.append(original, 0, prefixEnd).append(replacement);
+        for (int k = suffixSpans - 1; k >= 0; k--)
+        {
+            sb.append(original, suffix[2 * k], suffix[2 * k + 1]);
+        }
+
+        final String out = sb.toString();
+        cachedReplacement[slot] = replacement;
+        cachedOutput[slot] = out;
+        return out;
+    }
+
+    void clear()
+    {
+        Arrays.fill(cachedReplacement, null);
+        Arrays.fill(cachedOutput, null);
+    }
+
+    /**
+     * Finds the opening tags at the start of {@code s} and the closing tags at its end.
+     * Closing tags are collected from the last one backwards, so they are stored last first.
+     */
+    private void parse(String s)
+    {
+        final int n = s.length();
+
+        int i = 0;
+        while (i < n && s.charAt(i) == '<')
+        {
+            int end = s.indexOf('>', i);
+            if (end == -1 || s.startsWith("</", i))
+            {
+                break;
+            }
+            i = end + 1;
+        }
+        prefixEnd = i;
+
+        suffixSpans = 0;
+        suffixLength = 0;
+        int j = n;
+        while (j > 0)
+        {
+            int start = s.lastIndexOf('<', j - 1);
+            if (start == -1)
+            {
+                break;
+            }
+
+            int end = s.indexOf('>', start);
+            if (end == -1 || !s.startsWith("</", start))
+            {
+                break;
+            }
+
+            if (2 * suffixSpans == suffix.length)
+            {
+                suffix = Arrays.copyOf(suffix, suffix.length * 2);
+            }
+            suffix[2 * suffixSpans] = start;
+            suffix[2 * suffixSpans + 1] = end + 1;
+            suffixSpans++;
+            suffixLength += end + 1 - start;
+            j = start;
+        }
+    }
+
+    /**
+     * Whether {@code output}, built around a replacement of {@code replacementLength} chars,
+     * has exactly the envelope just parsed from {@code original}.
+     */
+    private boolean sameEnvelope(String original, String output, int replacementLength)
+    {
+        if (output.length() != prefixEnd + replacementLength + suffixLength
+                || !output.regionMatches(0, original, 0, prefixEnd))
+        {
+            return false;
+        }
+
+        int pos = prefixEnd + replacementLength;
+        for (int k = suffixSpans - 1; k >= 0; k--)
+        {
+            int start = suffix[2 * k];
+            int len = suffix[2 * k + 1] - start;
+            if (!output.regionMatches(pos, original, start, len))
+            {
+                return false;
+            }
+            pos += len;
+        }
+        return true;
+    }
+}
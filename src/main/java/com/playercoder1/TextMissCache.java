@@ -0,0 +1,67 @@
+package com.playercoder1;
+
+import java.util.Arrays;
+
+/**
+ * Fingerprints of widget text in which no NPC or item name was found: numbers, player
+ * names, levels and the like. A repeat is answered by one
+ * probe of a flat long[] set. When the set fills up it is simply emptied; the common misses
+ * come back within a tick. Only used from the client thread.
+ */
+final class TextMissCache
+{
+    private static final int CAPACITY = 1 << 13;
+    private static final int MAX_SIZE = CAPACITY / 4 * 3;
+
+    private final long[] slots = new long[CAPACITY];
+    private int size;
+
+    boolean contains(long fingerprint)
+    {
+        final long fp = fingerprint != 0 ? fingerprint : 1;
+        int slot = (int) (fp ^ (fp >>> 32)) & (CAPACITY - 1);
+        long s;
+        while ((s = slots[slot]) != 0)
+        {
+            if (s == fp)
+            {
+                return true;
+            }
+            slot = (slot + 1) & (CAPACITY - 1);
+        }
+        return false;
+    }
+
+    void add(long fingerprint)
+    {
+        if (size >= MAX_SIZE)
+        {
+            clear();
+        }
+
+        final long fp = fingerprint != 0 ? fingerprint : 1;
+        int slot = (int) (fp ^ (fp >>> 32)) & (CAPACITY - 1);
+        long s;
+        while ((s = slots[slot]) != 0)
+        {
+            if (s == fp)
+            {
+                return;
+            }
+            slot = (slot + 1) & (CAPACITY - 1);
+        }
+        slots[slot] = fp;
+        size++;
+    }
+
+    int size()
+    {
+        return size;
+    }
+
+    void clear()
+    {
+        Arrays.fill(slots, 0L);
+        size = 0;
+    }
+}
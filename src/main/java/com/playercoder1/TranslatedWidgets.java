@@ -0,0 +1,146 @@
+package com.playercoder1;
+
+import net.runelite.api.widgets.Widget;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Remembers, per interface group, a sample of the widgets that were translated and the text
+ * they were given. Scripts redraw interfaces without reloading them; a redraw puts English
+ * text back into those widgets or replaces them with new ones, so a group only needs to be
+ * walked again when one of its samples no longer shows our text. Only used from the client
+ * thread.
+ */
+final class TranslatedWidgets
+{
+    // A redraw resets every entry of a list, so a few samples per group are enough to see it.
+    private static final int SAMPLES_PER_GROUP = 16;
+
+    private static final int MAX_GROUP = 1 << 16;
+
+    private final BitSet groups = new BitSet();
+    private Widget[][] widgets = new Widget[0][];
+    private String[][] texts = new String[0][];
+    private byte[] counts = new byte[0];
+
+    void add(int group, Widget widget, String text)
+    {
+        if (group < 0 || group >= MAX_GROUP)
+        {
+            return;
+        }
+
+        if (group >= counts.length)
+        {
+            final int size = Math.min(MAX_GROUP, Integer.highestOneBit(Math.max(group, 1023)) << 1);
+            widgets = Arrays.copyOf(widgets, size);
+            texts = Arrays.copyOf(texts, size);
+            counts = Arrays.copyOf(counts, size);
+        }
+
+        groups.set(group);
+        final int n = counts[group];
+        if (widgets[group] == null)
+        {
+            widgets[group] = new Widget[SAMPLES_PER_GROUP];
+            texts[group] = new String[SAMPLES_PER_GROUP];
+        }
+
+        for (int i = 0; i < n; i++)
+        {
+            if (widgets[group][i] == widget)
+            {
+                texts[group][i] = text;
+                return;
+            }
+        }
+
+        if (n < SAMPLES_PER_GROUP)
+        {
+            widgets[group][n] = widget;
+            texts[group][n] = text;
+            counts[group] = (byte) (n + 1);
+        }
+    }
+
+    /**
+     * Marks in {@code dirty} every group with a sample that was redrawn. The redrawn samples
+     * are dropped; the walk that follows adds them back if they are translated again.
+     */
+    void collectChanged(BitSet dirty)
+    {
+        for (int group = groups.nextSetBit(0); group >= 0; group = groups.nextSetBit(group + 1))
+        {
+            if (dropChanged(group))
+            {
+                dirty.set(group);
+            }
+        }
+    }
+
+    void remove(int group)
+    {
+        if (group < 0 || group >= counts.length)
+        {
+            return;
+        }
+
+        groups.clear(group);
+        if (widgets[group] != null)
+        {
+            Arrays.fill(widgets[group], null);
+            Arrays.fill(texts[group], null);
+        }
+        counts[group] = 0;
+    }
+
+    void clear()
+    {
+        for (int group = groups.nextSetBit(0); group >= 0; group = groups.nextSetBit(group + 1))
+        {
+            remove(group);
+        }
+    }
+
+    private boolean dropChanged(int group)
+    {
+        final Widget[] sample = widgets[group];
+        final String[] given = texts[group];
+        final int n = counts[group];
+        int kept = 0;
+        for (int i = 0; i < n; i++)
+        {
+            if (!redrawn(sample[i], given[i]))
+            {
+                sample[kept] = sample[i];
+                given[kept] = given[i];
+                kept++;
+            }
+        }
+
+        if (kept == n)
+        {
+            return false;
+        }
+
+        Arrays.fill(sample, kept, n, null);
+        Arrays.fill(given, kept, n, null);
+        counts[group] = (byte) kept;
+        return true;
+    }
+
+    private static boolean redrawn(Widget w, String given)
+    {
+        // The widget keeps the exact String it was given until something else sets one.
+        if (w.getText() != given)
+        {
+            return true;
+        }
+
+        // A dynamic child that its parent no longer holds was replaced by a rebuild.
+        final int index = w.getIndex();
+        final Widget parent = index >= 0 ? w.getParent() : null;
+        return parent != null && parent.getChild(index) != w;
+    }
+}
@@ -0,0 +1,268 @@
+package com.playercoder1;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable normalized English key to French value table. Keys live in one contiguous
+ * Latin-1 (or UTF-16, if any key needs it) array addressed by offsets, values are shared
+ * String instances, and lookups go through a flat open-addressing index, so a dictionary
+ * holds a handful of arrays instead of one map node and one key String per entry.
+ * Instances are built once through {@link Builder} and are safe to share between threads.
+ *
+ * Besides plain String lookups it can be probed directly with a {@link NormalizedKey},
+ * which keeps the per-widget and per-menu lookups free of garbage.
+ */
+public final class TranslationDictionary
+{
+    static final TranslationDictionary EMPTY = new Builder().build();
+
+    private final byte[] latin1Keys;
+    private final char[] utf16Keys;
+    private final int[] keyOffsets;
+    private final int[] hashes;
+    private final String[] values;
+
+    // open-addressing index: entry number + 1, or 0 for an empty slot
+    private final int[] slots;
+
+    TranslationDictionary(char[] keyChars, int[] keyOffsets, int[] hashes, String[] values, int[] slots)
+    {
+        byte[] latin1 = toLatin1(keyChars);
+        this.latin1Keys = latin1;
+        this.utf16Keys = latin1 == null ? keyChars : null;
+        this.keyOffsets = keyOffsets;
+        this.hashes = hashes;
+        this.values = values;
+        this.slots = slots;
+    }
+
+    public int size()
+    {
+        return values.length;
+    }
+
+    public String get(String key)
+    {
+        if (key == null)
+        {
+            return null;
+        }
+
+        int h = key.hashCode();
+        int mask = slots.length - 1;
+        int slot = spread(h) & mask;
+        int e;
+        while ((e = slots[slot]) != 0)
+        {
+            if (hashes[e - 1] == h && keyEquals(e - 1, key))
+            {
+                return values[e - 1];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    public String get(NormalizedKey key)
+    {
+        if (key.isEmpty())
+        {
+            return null;
+        }
+
+        int h = key.hash();
+        int mask = slots.length - 1;
+        int slot = spread(h) & mask;
+        int e;
+        while ((e = slots[slot]) != 0)
+        {
+            if (hashes[e - 1] == h && keyEquals(e - 1, key))
+            {
+                return values[e - 1];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * {@code base} with every entry of {@code overrides} laid on top of it; an override
+     * replaces the base entry with the same key. Values are taken from {@code strings}.
+     */
+    static TranslationDictionary merge(TranslationDictionary base, TranslationDictionary overrides, TranslationStrings strings)
+    {
+        if (overrides.size() == 0)
+        {
+            return base;
+        }
+
+        Builder merged = new Builder();
+        for (int i = 0; i < base.size(); i++)
+        {
+            merged.put(base.keyAt(i), base.valueAt(i));
+        }
+        for (int i = 0; i < overrides.size(); i++)
+        {
+            merged.put(overrides.keyAt(i), overrides.valueAt(i));
+        }
+        return merged.build(strings);
+    }
+
+    String keyAt(int entry)
+    {
+        int start = keyOffsets[entry];
+        int end = keyOffsets[entry + 1];
+        return latin1Keys != null
+                ? new String(latin1Keys, start, end - start, StandardCharsets.ISO_8859_1)
+                : new String(utf16Keys, start, end - start);
+    }
+
+    String valueAt(int entry)
+    {
+        return values[entry];
+    }
+
+    int hashAt(int entry)
+    {
+        return hashes[entry];
+    }
+
+    private boolean keyEquals(int entry, CharSequence key)
+    {
+        int start = keyOffsets[entry];
+        int len = keyOffsets[entry + 1] - start;
+        if (key.length() != len)
+        {
+            return false;
+        }
+
+        if (latin1Keys != null)
+        {
+            for (int i = 0; i < len; i++)
+            {
+                if (key.charAt(i) != (char) (latin1Keys[start + i] & 0xFF))
+                {
+                    return false;
+                }
+            }
+        }
+        else
+        {
+            for (int i = 0; i < len; i++)
+            {
+                if (key.charAt(i) != utf16Keys[start + i])
+                {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    static int[] buildIndex(int[] hashes, int count, int capacity)
+    {
+        int[] index = new int[capacity];
+        int mask = capacity - 1;
+        for (int i = 0; i < count; i++)
+        {
+            int slot = spread(hashes[i]) & mask;
+            while (index[slot] != 0)
+            {
+                slot = (slot + 1) & mask;
+            }
+            index[slot] = i + 1;
+        }
+        return index;
+    }
+
+    static int indexCapacity(int count)
+    {
+        return Integer.highestOneBit(Math.max(count, 8) * 2 - 1) << 1;
+    }
+
+    private static byte[] toLatin1(char[] chars)
+    {
+        byte[] out = new byte[chars.length];
+        for (int i = 0; i < chars.length; i++)
+        {
+            if (chars[i] > 0xFF)
+            {
+                return null;
+            }
+            out[i] = (byte) chars[i];
+        }
+        return out;
+    }
+
+    private static int spread(int h)
+    {
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Collects entries while a file is parsed; later puts of the same key win, as they did
+     * with the plain maps. {@link #build(TranslationStrings)} sorts the keys and freezes them.
+     */
+    public static final class Builder
+    {
+        private final Map<String, String> entries = new HashMap<>();
+
+        public Builder put(String key, String value)
+        {
+            entries.put(key, value);
+            return this;
+        }
+
+        public int size()
+        {
+            return entries.size();
+        }
+
+        /**
+         * Builds with values shared within this dictionary only.
+         */
+        public TranslationDictionary build()
+        {
+            return build(new TranslationStrings());
+        }
+
+        /**
+         * Builds with every value replaced by its instance in {@code strings}.
+         */
+        TranslationDictionary build(TranslationStrings strings)
+        {
+            final int n = entries.size();
+            String[] keys = entries.keySet().toArray(new String[0]);
+            Arrays.sort(keys);
+
+            int total = 0;
+            for (String k : keys)
+            {
+                total += k.length();
+            }
+
+            char[] keyChars = new char[total];
+            int[] keyOffsets = new int[n + 1];
+            int[] hashes = new int[n];
+            String[] values = new String[n];
+
+            int pos = 0;
+            for (int i = 0; i < n; i++)
+            {
+                String k = keys[i];
+                k.getChars(0, k.length(), keyChars, pos);
+                keyOffsets[i] = pos;
+                pos += k.length();
+
+                hashes[i] = k.hashCode();
+                values[i] = strings.canonical(entries.get(k));
+            }
+            keyOffsets[n] = pos;
+
+            return new TranslationDictionary(keyChars, keyOffsets, hashes, values, buildIndex(hashes, n, indexCapacity(n)));
+        }
+    }
+}
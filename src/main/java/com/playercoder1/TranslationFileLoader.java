@@ -1,21 +1,53 @@
 package com.playercoder1;
 
 import lombok.extern.slf4j.Slf4j;
-import net.runelite.client.util.Text;
 
 import java.io.BufferedReader;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
-import java.util.Map;
+import java.util.concurrent.RecursiveAction;
 
 @Slf4j
 public final class TranslationFileLoader
 {
     private TranslationFileLoader() {}
 
-    public static int loadPipeSeparated(String resourceName, Map<String, String> out)
+    // chunk size for parallel parsing; a bundled file is cut into a handful of chunks
+    private static final int PARSE_CHUNK_BYTES = 64 * 1024;
+
+    private static final ThreadLocal<NormalizedKey> KEY_BUFFER = ThreadLocal.withInitial(NormalizedKey::new);
+
+    interface PairHandler
+    {
+        boolean accept(String english, String french);
+    }
+
+    static TranslationDictionary loadDictionary(String resourceName, TranslationStrings strings)
+    {
+        String compiledName = compiledResourceName(resourceName);
+        InputStream compiled = TranslationFileLoader.class.getClassLoader().getResourceAsStream(compiledName);
+        if (compiled != null)
+        {
+            try (InputStream in = compiled)
+            {
+                return CompiledDictionary.read(in.readAllBytes(), strings).dictionary;
+            }
+            catch (Exception e)
+            {
+                log.warn("Failed reading compiled dictionary {}, parsing {} instead", compiledName, resourceName, e);
+            }
+        }
+
+        TranslationDictionary.Builder out = new TranslationDictionary.Builder();
+        return loadPipeSeparated(resourceName, out) >= 0 ? out.build(strings) : null;
+    }
+
+    public static int loadPipeSeparated(String resourceName, TranslationDictionary.Builder out)
     {
         InputStream in = TranslationFileLoader.class.getClassLoader().getResourceAsStream(resourceName);
         if (in == null)
@@ -24,26 +56,128 @@ public final class TranslationFileLoader
             return -1;
         }
 
+        try (InputStream stream = in)
+        {
+            return readPipeSeparated(stream, out);
+        }
+        catch (Exception e)
+        {
+            log.error("Failed reading resource {}", resourceName, e);
+            return -1;
+        }
+    }
+
+    /**
+     * Reads the whole stream into one buffer, cuts it into chunks at line boundaries and
+     * parses and normalizes the chunks in parallel on the common fork-join pool. Entries are
+     * merged back in file order, so a key that appears twice still keeps its last value.
+     */
+    static int readPipeSeparated(InputStream in, TranslationDictionary.Builder out) throws IOException
+    {
+        final byte[] bytes = in.readAllBytes();
+
+        List<ParseChunk> chunks = new ArrayList<>();
+        int start = 0;
+        while (start < bytes.length)
+        {
+            int end = Math.min(bytes.length, start + PARSE_CHUNK_BYTES);
+            while (end < bytes.length && bytes[end - 1] != '\n')
+            {
+                end++;
+            }
+            chunks.add(new ParseChunk(bytes, start, end));
+            start = end;
+        }
+
+        for (int i = 1; i < chunks.size(); i++)
+        {
+            chunks.get(i).fork();
+        }
+        if (!chunks.isEmpty())
+        {
+            chunks.get(0).invoke();
+        }
+
         int loaded = 0;
         boolean firstLine = true;
+        for (ParseChunk chunk : chunks)
+        {
+            if (chunk != chunks.get(0))
+            {
+                chunk.join();
+            }
+
+            int first = 0;
+            if (firstLine && chunk.hasContent)
+            {
+                firstLine = false;
+                if (chunk.startsWithHeader)
+                {
+                    first = 2;
+                }
+            }
 
-        try (BufferedReader br = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)))
+            final List<String> pairs = chunk.pairs;
+            for (int i = first; i < pairs.size(); i += 2)
+            {
+                out.put(pairs.get(i), pairs.get(i + 1));
+            }
+            loaded += (pairs.size() - first) / 2;
+        }
+        return loaded;
+    }
+
+    /**
+     * One slice of a pipe-separated file, parsed the same way as {@link #readPairs}. Whether
+     * its first line is the header can only be decided once the chunks before it are known,
+     * so the header is kept as an ordinary pair and flagged.
+     */
+    private static final class ParseChunk extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final byte[] bytes;
+        private final int start;
+        private final int end;
+
+        final List<String> pairs = new ArrayList<>();
+        boolean hasContent;
+        boolean startsWithHeader;
+
+        ParseChunk(byte[] bytes, int start, int end)
         {
-            String line;
-            while ((line = br.readLine()) != null)
+            this.bytes = bytes;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute()
+        {
+            // chunks end on '\n', which never occurs inside a multi-byte UTF-8 sequence
+            final String text = new String(bytes, start, end - start, StandardCharsets.UTF_8);
+
+            int pos = 0;
+            while (pos < text.length())
             {
-                line = stripBom(line).trim();
+                int eol = text.indexOf('\n', pos);
+                if (eol == -1)
+                {
+                    eol = text.length();
+                }
+                String line = stripBom(text.substring(pos, eol)).trim();
+                pos = eol + 1;
+
                 if (line.isEmpty() || line.startsWith("#"))
                 {
                     continue;
                 }
 
-                if (firstLine && line.toLowerCase(Locale.ROOT).equals("english|french"))
+                if (!hasContent)
                 {
-                    firstLine = false;
-                    continue;
+                    hasContent = true;
+                    startsWithHeader = line.toLowerCase(Locale.ROOT).equals("english|french");
                 }
-                firstLine = false;
 
                 int sep = line.indexOf('|');
                 if (sep <= 0 || sep >= line.length() - 1)
@@ -51,25 +185,69 @@ public final class TranslationFileLoader
                     continue;
                 }
 
-                String key = normKey(line.substring(0, sep));
-                String val = line.substring(sep + 1).trim();
+                String en = line.substring(0, sep).trim();
+                String fr = line.substring(sep + 1).trim();
+                if (en.isEmpty() || fr.isEmpty())
+                {
+                    continue;
+                }
 
-                if (!key.isEmpty() && !val.isEmpty())
+                String key = normKey(en);
+                if (!key.isEmpty())
                 {
-                    out.put(key, val);
-                    loaded++;
+                    pairs.add(key);
+                    pairs.add(fr);
                 }
             }
         }
-        catch (Exception e)
+    }
+
+    static int readPairs(InputStream in, PairHandler handler) throws IOException
+    {
+        int loaded = 0;
+        boolean firstLine = true;
+
+        BufferedReader br = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String line;
+        while ((line = br.readLine()) != null)
         {
-            log.error("Failed reading resource {}", resourceName, e);
-            return -1;
+            line = stripBom(line).trim();
+            if (line.isEmpty() || line.startsWith("#"))
+            {
+                continue;
+            }
+
+            if (firstLine && line.toLowerCase(Locale.ROOT).equals("english|french"))
+            {
+                firstLine = false;
+                continue;
+            }
+            firstLine = false;
+
+            int sep = line.indexOf('|');
+            if (sep <= 0 || sep >= line.length() - 1)
+            {
+                continue;
+            }
+
+            String en = line.substring(0, sep).trim();
+            String fr = line.substring(sep + 1).trim();
+
+            if (!en.isEmpty() && !fr.isEmpty() && handler.accept(en, fr))
+            {
+                loaded++;
+            }
         }
 
         return loaded;
     }
 
+    static String compiledResourceName(String resourceName)
+    {
+        int dot = resourceName.lastIndexOf('.');
+        return (dot > 0 ? resourceName.substring(0, dot) : resourceName) + CompiledDictionary.EXTENSION;
+    }
+
     public static String visibleText(String s)
     {
         if (s == null)
@@ -77,49 +255,100 @@ public final class TranslationFileLoader
             return "";
         }
 
-        String t = s
-                .replace("<br>", " ")
-                .replace("<br/>", " ")
-                .replace("<br />", " ");
+        if (s.indexOf('<') == -1 && s.indexOf('\u00A0') == -1)
+        {
+            return s;
+        }
+
+        final int n = s.length();
+        // like Text.removeTags, a '<' with no '>' after it is plain text
+        final int lastClose = s.lastIndexOf('>');
+        StringBuilder sb = new StringBuilder(n);
+
+        for (int i = 0; i < n; i++)
+        {
+            char c = s.charAt(i);
+
+            if (c == '<' && i < lastClose)
+            {
+                int end = s.indexOf('>', i);
+                if (isLineBreak(s, i, end))
+                {
+                    sb.append(' ');
+                }
+                i = end;
+                continue;
+            }
 
-        t = Text.removeTags(t);
-        t = t.replace('\u00A0', ' ');
+            sb.append(c == '\u00A0' ? ' ' : c);
+        }
 
-        return t;
+        return sb.toString();
     }
 
     public static String normKey(String s)
     {
-        String clean = visibleText(s);
-        int n = clean.length();
-        if (n == 0)
+        return normalize(s).toString();
+    }
+
+    /**
+     * Normalizes {@code s} the same way as {@link #normKey(String)} in a single pass, into a
+     * buffer owned by the calling thread. The returned key is only valid until the next call
+     * on the same thread, so it has to be consumed before any other lookup is made.
+     */
+    public static NormalizedKey normalize(String s)
+    {
+        NormalizedKey key = KEY_BUFFER.get();
+        key.reset();
+
+        if (s == null)
         {
-            return "";
+            return key;
         }
 
-        StringBuilder sb = new StringBuilder(n);
-        boolean inWs = true;
+        final int n = s.length();
+        final int lastClose = s.lastIndexOf('>');
+        boolean pendingSpace = false;
 
         for (int i = 0; i < n; i++)
         {
-            char c = clean.charAt(i);
+            char c = s.charAt(i);
 
-            if (Character.isWhitespace(c))
+            if (c == '<' && i < lastClose)
             {
-                inWs = true;
+                int end = s.indexOf('>', i);
+                if (isLineBreak(s, i, end))
+                {
+                    pendingSpace = !key.isEmpty();
+                }
+                i = end;
                 continue;
             }
 
-            if (inWs && sb.length() > 0)
+            if (c == '\u00A0' || Character.isWhitespace(c))
             {
-                sb.append(' ');
+                pendingSpace = !key.isEmpty();
+                continue;
+            }
+
+            if (pendingSpace)
+            {
+                key.append(' ');
+                pendingSpace = false;
             }
 
-            sb.append(Character.toLowerCase(c));
-            inWs = false;
+            key.append(Character.toLowerCase(c));
         }
 
-        return sb.toString().trim();
+        return key;
+    }
+
+    static boolean isLineBreak(String s, int start, int end)
+    {
+        int len = end - start + 1;
+        return (len == 4 && s.startsWith("<br>", start))
+                || (len == 5 && s.startsWith("<br/>", start))
+                || (len == 6 && s.startsWith("<br />", start));
     }
 
     private static String stripBom(String s)
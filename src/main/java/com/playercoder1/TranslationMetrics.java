@@ -0,0 +1,265 @@
+package com.playercoder1;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Client-thread cost of the plugin, behind the "Performance metrics" option: handler timings,
+ * widgets visited per tick, cache and dictionary hit rates and dialog rule scan depth.
+ * Every call site checks {@link #enabled} first, so with metrics off the only cost is one
+ * field read per handler. Recording is not synchronized; the numbers are for eyeballing.
+ */
+final class TranslationMetrics
+{
+    enum Timer
+    {
+        GAME_TICK("Tick: interfaces"),
+        BEFORE_RENDER("Frame: dialogs"),
+        MENU_ENTRY("Menu entry"),
+        ITEM_COMPOSITION("Item composition");
+
+        final String label;
+
+        Timer(String label)
+        {
+            this.label = label;
+        }
+    }
+
+    enum Counter
+    {
+        WIDGET_CACHE_HIT, WIDGET_CACHE_MISS,
+        TEXT_FILTER_REJECT, TEXT_FILTER_PASS,
+        MENU_CACHE_HIT, MENU_CACHE_MISS,
+        CHAT_CACHE_HIT, CHAT_CACHE_MISS,
+        DIALOG_MEMO_HIT, DIALOG_MEMO_MISS,
+        ITEM_HIT, ITEM_MISS,
+        NPC_HIT, NPC_MISS,
+        QUEST_HIT, QUEST_MISS,
+        DIALOG_EXACT_HIT, DIALOG_RULE_HIT, DIALOG_MISS
+    }
+
+    static volatile boolean enabled;
+
+    static final Histogram WIDGETS_PER_TICK = new Histogram();
+    static final Histogram RULE_SCAN_DEPTH = new Histogram();
+
+    // reports kept in the log file, an hour at one per minute
+    private static final int LOG_WINDOW = 60;
+
+    private static final Histogram[] TIMERS = new Histogram[Timer.values().length];
+    private static final long[] COUNTERS = new long[Counter.values().length];
+
+    private static final String[] LOGGED = new String[LOG_WINDOW];
+    private static int loggedCount;
+
+    static
+    {
+        for (int i = 0; i < TIMERS.length; i++)
+        {
+            TIMERS[i] = new Histogram();
+        }
+    }
+
+    private TranslationMetrics() {}
+
+    static void time(Timer timer, long nanos)
+    {
+        TIMERS[timer.ordinal()].record(nanos);
+    }
+
+    static void count(Counter counter)
+    {
+        COUNTERS[counter.ordinal()]++;
+    }
+
+    static void count(boolean hit, Counter ifHit, Counter ifMiss)
+    {
+        COUNTERS[(hit ? ifHit : ifMiss).ordinal()]++;
+    }
+
+    static void reset()
+    {
+        for (Histogram h : TIMERS)
+        {
+            h.reset();
+        }
+        WIDGETS_PER_TICK.reset();
+        RULE_SCAN_DEPTH.reset();
+        Arrays.fill(COUNTERS, 0);
+    }
+
+    /**
+     * One label and value per line, as shown in the overlay.
+     */
+    static List<String[]> lines()
+    {
+        List<String[]> out = new ArrayList<>();
+        for (Timer t : Timer.values())
+        {
+            Histogram h = TIMERS[t.ordinal()];
+            out.add(new String[]{t.label, h.count() == 0 ? "-" : String.format(Locale.ROOT, "%s / %s / %s us",
+                    micros(h.percentile(0.50)), micros(h.percentile(0.99)), micros(h.max()))});
+        }
+
+        out.add(new String[]{"Widgets / tick", WIDGETS_PER_TICK.count() == 0 ? "-" : String.format(Locale.ROOT, "%d / %d",
+                WIDGETS_PER_TICK.percentile(0.50), WIDGETS_PER_TICK.max())});
+        out.add(new String[]{"Widget cache", ratio(Counter.WIDGET_CACHE_HIT, Counter.WIDGET_CACHE_MISS)});
+        out.add(new String[]{"Text filtered", ratio(Counter.TEXT_FILTER_REJECT, Counter.TEXT_FILTER_PASS)});
+        out.add(new String[]{"Menu cache", ratio(Counter.MENU_CACHE_HIT, Counter.MENU_CACHE_MISS)});
+        out.add(new String[]{"Chat cache", ratio(Counter.CHAT_CACHE_HIT, Counter.CHAT_CACHE_MISS)});
+        out.add(new String[]{"Dialog memo", ratio(Counter.DIALOG_MEMO_HIT, Counter.DIALOG_MEMO_MISS)});
+        out.add(new String[]{"Items", ratio(Counter.ITEM_HIT, Counter.ITEM_MISS)});
+        out.add(new String[]{"NPCs", ratio(Counter.NPC_HIT, Counter.NPC_MISS)});
+        out.add(new String[]{"Quests", ratio(Counter.QUEST_HIT, Counter.QUEST_MISS)});
+        out.add(new String[]{"Dialogs", String.format(Locale.ROOT, "%d exact, %d rule, %d miss",
+                COUNTERS[Counter.DIALOG_EXACT_HIT.ordinal()], COUNTERS[Counter.DIALOG_RULE_HIT.ordinal()],
+                COUNTERS[Counter.DIALOG_MISS.ordinal()])});
+        out.add(new String[]{"Rule scan depth", RULE_SCAN_DEPTH.count() == 0 ? "-" : String.format(Locale.ROOT, "%d / %d",
+                RULE_SCAN_DEPTH.percentile(0.50), RULE_SCAN_DEPTH.max())});
+        return out;
+    }
+
+    static String report()
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append(LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME)).append('\n');
+        for (String[] line : lines())
+        {
+            sb.append("  ").append(line[0]).append(": ").append(line[1]).append('\n');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Adds {@code report} to the last {@link #LOG_WINDOW} reports and returns them oldest
+     * first, which is what the log file should hold. Called from the client thread only.
+     */
+    static String logWindow(String report)
+    {
+        LOGGED[loggedCount++ % LOG_WINDOW] = report;
+
+        StringBuilder sb = new StringBuilder();
+        for (int i = Math.max(0, loggedCount - LOG_WINDOW); i < loggedCount; i++)
+        {
+            sb.append(LOGGED[i % LOG_WINDOW]);
+        }
+        return sb.toString();
+    }
+
+    static void write(Path file, String log)
+    {
+        try
+        {
+            Files.write(file, log.getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        }
+        catch (IOException e)
+        {
+            // metrics are best effort; a full disk must not break translation
+        }
+    }
+
+    private static String ratio(Counter hit, Counter miss)
+    {
+        long h = COUNTERS[hit.ordinal()];
+        long m = COUNTERS[miss.ordinal()];
+        return h + m == 0 ? "-" : String.format(Locale.ROOT, "%.1f%% of %d", h * 100.0 / (h + m), h + m);
+    }
+
+    private static String micros(long nanos)
+    {
+        return String.format(Locale.ROOT, "%.1f", nanos / 1_000.0);
+    }
+
+    /**
+     * Log-linear histogram of non-negative values: exact below 8, then 8 buckets per power
+     * of two, so percentiles are within 12.5% while the whole thing stays a fixed long[].
+     */
+    static final class Histogram
+    {
+        private static final int SUB_BITS = 3;
+        private static final int SUB_COUNT = 1 << SUB_BITS;
+
+        private final long[] buckets = new long[(64 - SUB_BITS + 1) * SUB_COUNT];
+        private long count;
+        private long max;
+
+        void record(long value)
+        {
+            if (value < 0)
+            {
+                value = 0;
+            }
+            buckets[bucket(value)]++;
+            count++;
+            if (value > max)
+            {
+                max = value;
+            }
+        }
+
+        long count()
+        {
+            return count;
+        }
+
+        long max()
+        {
+            return max;
+        }
+
+        long percentile(double p)
+        {
+            long rank = (long) Math.ceil(p * count);
+            long seen = 0;
+            for (int b = 0; b < buckets.length; b++)
+            {
+                seen += buckets[b];
+                if (seen >= rank && seen > 0)
+                {
+                    return Math.min(upperBound(b), max);
+                }
+            }
+            return max;
+        }
+
+        void reset()
+        {
+            Arrays.fill(buckets, 0);
+            count = 0;
+            max = 0;
+        }
+
+        private static int bucket(long value)
+        {
+            if (value < SUB_COUNT)
+            {
+                return (int) value;
+            }
+            int exp = 63 - Long.numberOfLeadingZeros(value);
+            int sub = (int) (value >>> (exp - SUB_BITS)) & (SUB_COUNT - 1);
+            return (exp - SUB_BITS + 1) * SUB_COUNT + sub;
+        }
+
+        private static long upperBound(int bucket)
+        {
+            if (bucket < SUB_COUNT)
+            {
+                return bucket;
+            }
+            int exp = bucket / SUB_COUNT + SUB_BITS - 1;
+            int sub = bucket % SUB_COUNT;
+            return ((long) (SUB_COUNT + sub + 1) << (exp - SUB_BITS)) - 1;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.playercoder1;
+
+import net.runelite.client.ui.overlay.OverlayPanel;
+import net.runelite.client.ui.overlay.OverlayPosition;
+import net.runelite.client.ui.overlay.components.LineComponent;
+import net.runelite.client.ui.overlay.components.TitleComponent;
+
+import javax.inject.Inject;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.util.List;
+
+/**
+ * Shows {@link TranslationMetrics} while performance metrics are enabled. The figures are
+ * re-read twice a second rather than every frame so the overlay does not skew what it shows.
+ */
+class TranslationMetricsOverlay extends OverlayPanel
+{
+    private static final long REFRESH_NANOS = 500_000_000L;
+
+    private List<String[]> lines;
+    private long refreshedAt;
+
+    @Inject
+    TranslationMetricsOverlay(FrenchTranslationPlugin plugin)
+    {
+        super(plugin);
+        setPosition(OverlayPosition.TOP_LEFT);
+    }
+
+    @Override
+    public Dimension render(Graphics2D graphics)
+    {
+        if (!TranslationMetrics.enabled)
+        {
+            return null;
+        }
+
+        long now = System.nanoTime();
+        if (lines == null || now - refreshedAt > REFRESH_NANOS)
+        {
+            lines = TranslationMetrics.lines();
+            refreshedAt = now;
+        }
+
+        panelComponent.getChildren().add(TitleComponent.builder().text("Osrs In French").build());
+        for (String[] line : lines)
+        {
+            panelComponent.getChildren().add(LineComponent.builder().left(line[0]).right(line[1]).build());
+        }
+        return super.render(graphics);
+    }
+}
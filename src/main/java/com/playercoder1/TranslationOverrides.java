@@ -0,0 +1,262 @@
+package com.playercoder1;
+
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.client.RuneLite;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * User translation files in {@code .runelite/osrs-in-french}, named like the bundled
+ * resources ({@code item_french.txt}, {@code dialog_french.txt}, ...). Their entries are laid
+ * on top of the bundled translations, and the folder is watched so an edited file is
+ * re-parsed on a background thread and swapped in without restarting the client. Only the
+ * file that changed is read again.
+ */
+@Slf4j
+final class TranslationOverrides
+{
+    static final Path DIRECTORY = RuneLite.RUNELITE_DIR.toPath().resolve("osrs-in-french");
+
+    private static final List<String> FILES = Arrays.asList(
+            FrenchItemTranslations.RESOURCE,
+            FrenchNpcTranslations.RESOURCE,
+            FrenchQuestTranslations.RESOURCE,
+            FrenchMenuTranslations.RESOURCE,
+            FrenchDialogTranslations.RESOURCE);
+
+    // editors save in several steps (truncate, write, rename); wait for them to settle
+    private static final long SETTLE_MILLIS = 250;
+
+    private final Runnable onChange;
+    private final Set<String> applied = new HashSet<>();
+    private WatchService watcher;
+
+    /**
+     * @param onChange run on the watcher thread after a changed file has been swapped in
+     */
+    TranslationOverrides(Runnable onChange)
+    {
+        this.onChange = onChange;
+    }
+
+    /**
+     * Applies every override file present and starts watching the folder. Reads files, so
+     * it must not be called on the client thread.
+     */
+    synchronized void start()
+    {
+        if (watcher != null)
+        {
+            return;
+        }
+
+        final WatchService ws;
+        try
+        {
+            Files.createDirectories(DIRECTORY);
+            ws = FileSystems.getDefault().newWatchService();
+            DIRECTORY.register(ws,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY,
+                    StandardWatchEventKinds.ENTRY_DELETE);
+        }
+        catch (IOException e)
+        {
+            log.warn("Cannot watch translation overrides in {}", DIRECTORY, e);
+            return;
+        }
+
+        watcher = ws;
+        final TranslationStrings strings = new TranslationStrings();
+        for (String file : FILES)
+        {
+            reload(file, strings);
+        }
+
+        Thread thread = new Thread(() -> watch(ws), "osrs-in-french-overrides");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops watching and goes back to the bundled translations.
+     */
+    synchronized void stop()
+    {
+        if (watcher == null)
+        {
+            return;
+        }
+
+        try
+        {
+            watcher.close();
+        }
+        catch (IOException e)
+        {
+            log.debug("Closing the override watcher failed", e);
+        }
+        watcher = null;
+
+        final TranslationStrings strings = new TranslationStrings();
+        for (String file : applied)
+        {
+            try
+            {
+                apply(file, null, strings);
+            }
+            catch (IOException e)
+            {
+                // nothing is read when reverting
+            }
+        }
+        applied.clear();
+    }
+
+    private void watch(WatchService ws)
+    {
+        try
+        {
+            while (true)
+            {
+                WatchKey key = ws.take();
+                Thread.sleep(SETTLE_MILLIS);
+
+                Set<String> changed = new HashSet<>();
+                do
+                {
+                    for (WatchEvent<?> event : key.pollEvents())
+                    {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW)
+                        {
+                            changed.addAll(FILES);
+                        }
+                        else
+                        {
+                            changed.add(((Path) event.context()).getFileName().toString());
+                        }
+                    }
+                    key.reset();
+                }
+                while ((key = ws.poll()) != null);
+
+                reloadChanged(ws, changed);
+            }
+        }
+        catch (ClosedWatchServiceException | InterruptedException e)
+        {
+            // stopped
+        }
+    }
+
+    private synchronized void reloadChanged(WatchService ws, Set<String> changed)
+    {
+        if (watcher != ws)
+        {
+            return;
+        }
+
+        boolean any = false;
+        final TranslationStrings strings = new TranslationStrings();
+        for (String file : FILES)
+        {
+            if (changed.contains(file))
+            {
+                any |= reload(file, strings);
+            }
+        }
+
+        if (any)
+        {
+            onChange.run();
+        }
+    }
+
+    private boolean reload(String file, TranslationStrings strings)
+    {
+        final Path path = DIRECTORY.resolve(file);
+        final boolean exists = Files.isRegularFile(path);
+        if (!exists && !applied.contains(file))
+        {
+            return false;
+        }
+
+        try (InputStream in = exists ? Files.newInputStream(path) : null)
+        {
+            int entries = apply(file, in, strings);
+            if (exists)
+            {
+                applied.add(file);
+                log.info("Applied {} translation overrides from {}", entries, path);
+            }
+            else
+            {
+                applied.remove(file);
+                log.info("Removed translation overrides from {}", path);
+            }
+            return true;
+        }
+        catch (IOException e)
+        {
+            // keep what was applied before; the next save will be picked up again
+            log.warn("Failed reading translation overrides from {}", path, e);
+            return false;
+        }
+    }
+
+    /**
+     * Parses {@code in} (or nothing, when null) and hands the result to the matching
+     * translation class, which takes its values from {@code strings}. Returns the number of
+     * entries read.
+     */
+    private static int apply(String file, InputStream in, TranslationStrings strings) throws IOException
+    {
+        if (FrenchDialogTranslations.RESOURCE.equals(file))
+        {
+            TranslationDictionary.Builder exact = new TranslationDictionary.Builder();
+            List<FrenchDialogTranslations.TemplateRule> templates = new ArrayList<>();
+            if (in != null)
+            {
+                FrenchDialogTranslations.parseDialogFile(in, exact, templates);
+            }
+            FrenchDialogTranslations.applyOverrides(exact.build(), templates, strings);
+            return exact.size() + templates.size();
+        }
+
+        TranslationDictionary.Builder out = new TranslationDictionary.Builder();
+        int entries = in != null ? TranslationFileLoader.readPipeSeparated(in, out) : 0;
+        TranslationDictionary dict = out.build();
+        switch (file)
+        {
+            case FrenchItemTranslations.RESOURCE:
+                FrenchItemTranslations.applyOverrides(dict, strings);
+                break;
+            case FrenchNpcTranslations.RESOURCE:
+                FrenchNpcTranslations.applyOverrides(dict, strings);
+                break;
+            case FrenchQuestTranslations.RESOURCE:
+                FrenchQuestTranslations.applyOverrides(dict, strings);
+                break;
+            case FrenchMenuTranslations.RESOURCE:
+                FrenchMenuTranslations.applyOverrides(dict, strings);
+                break;
+            default:
+                break;
+        }
+        return entries;
+    }
+}
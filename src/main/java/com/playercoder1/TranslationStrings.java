@@ -0,0 +1,61 @@
+package com.playercoder1;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool of canonical French values for one load or override pass, so equal values share
+ * one String instance across the dictionaries built in it: dose variants, NPC names that
+ * are also item names, dialog lines repeated between files. Dictionaries take their values
+ * from it while they are built, before they are published, so a published dictionary is
+ * never modified. The pool is dropped with the pass and costs no heap afterwards. Safe to
+ * use from the loader threads concurrently.
+ */
+final class TranslationStrings
+{
+    private final Map<String, String> pool = new ConcurrentHashMap<>();
+    private final AtomicLong freed = new AtomicLong();
+
+    /**
+     * The pooled instance equal to {@code value}, which becomes the pooled one if there is
+     * none yet.
+     */
+    String canonical(String value)
+    {
+        final String canonical = pool.putIfAbsent(value, value);
+        if (canonical == null)
+        {
+            return value;
+        }
+
+        if (canonical != value)
+        {
+            freed.addAndGet(shallowSize(value));
+        }
+        return canonical;
+    }
+
+    /**
+     * Estimate of the bytes held by the duplicates that were replaced with a pooled instance.
+     */
+    long freedBytes()
+    {
+        return freed.get();
+    }
+
+    /**
+     * String object plus its backing array on a 64-bit JVM with compressed oops and compact
+     * strings.
+     */
+    private static long shallowSize(String s)
+    {
+        boolean latin1 = true;
+        for (int i = 0; i < s.length() && latin1; i++)
+        {
+            latin1 = s.charAt(i) <= 0xFF;
+        }
+        long array = 16 + (long) s.length() * (latin1 ? 1 : 2);
+        return 24 + ((array + 7) & ~7L);
+    }
+}
@@ -0,0 +1,175 @@
+package com.playercoder1;
+
+import net.runelite.api.widgets.WidgetUtil;
+
+import java.util.Arrays;
+
+/**
+ * Remembers the last text seen for each widget id so unchanged widgets can be skipped.
+ * Only the text hash is kept, in a primitive open-addressing table with a fixed size cap,
+ * so memory stays flat regardless of how many interfaces are opened during a session.
+ * When the cap is reached, an entry is evicted with the CLOCK (second chance) policy.
+ */
+final class WidgetTextCache
+{
+    private static final int FREE = -1;
+
+    private final int maxEntries;
+    private final int mask;
+    private final int[] keys;
+    private final int[] textHashes;
+    private final boolean[] referenced;
+
+    private int size;
+    private int hand;
+
+    WidgetTextCache(int maxEntries)
+    {
+        this.maxEntries = maxEntries;
+
+        int capacity = Integer.highestOneBit(Math.max(maxEntries, 8) * 2 - 1) << 1;
+        this.mask = capacity - 1;
+        this.keys = new int[capacity];
+        this.textHashes = new int[capacity];
+        this.referenced = new boolean[capacity];
+        Arrays.fill(keys, FREE);
+    }
+
+    boolean matches(int widgetId, String text)
+    {
+        int slot = find(widgetId);
+        if (slot < 0 || textHashes[slot] != text.hashCode())
+        {
+            return false;
+        }
+
+        referenced[slot] = true;
+        return true;
+    }
+
+    void put(int widgetId, String text)
+    {
+        int slot = find(widgetId);
+        if (slot < 0)
+        {
+            if (size >= maxEntries)
+            {
+                evictOne();
+            }
+
+            slot = home(widgetId);
+            while (keys[slot] != FREE)
+            {
+                slot = (slot + 1) & mask;
+            }
+
+            keys[slot] = widgetId;
+            size++;
+        }
+
+        textHashes[slot] = text.hashCode();
+        referenced[slot] = true;
+    }
+
+    void evictGroup(int groupId)
+    {
+        int slot = 0;
+        while (slot < keys.length)
+        {
+            int key = keys[slot];
+            if (key != FREE && WidgetUtil.componentToInterface(key) == groupId)
+            {
+                // removal shifts a later entry into this slot, so look at it again
+                remove(slot);
+                continue;
+            }
+            slot++;
+        }
+    }
+
+    void clear()
+    {
+        Arrays.fill(keys, FREE);
+        Arrays.fill(referenced, false);
+        size = 0;
+        hand = 0;
+    }
+
+    int size()
+    {
+        return size;
+    }
+
+    private int find(int widgetId)
+    {
+        int slot = home(widgetId);
+        while (true)
+        {
+            int key = keys[slot];
+            if (key == widgetId)
+            {
+                return slot;
+            }
+            if (key == FREE)
+            {
+                return -1;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private void evictOne()
+    {
+        while (true)
+        {
+            int slot = hand;
+            hand = (hand + 1) & mask;
+
+            if (keys[slot] == FREE)
+            {
+                continue;
+            }
+
+            if (referenced[slot])
+            {
+                referenced[slot] = false;
+                continue;
+            }
+
+            remove(slot);
+            return;
+        }
+    }
+
+    private void remove(int slot)
+    {
+        // Backward-shift deletion keeps every probe chain intact without tombstones.
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (keys[next] != FREE)
+        {
+            int want = home(keys[next]);
+            boolean movable = hole <= next
+                    ? want <= hole || want > next
+                    : want <= hole && want > next;
+            if (movable)
+            {
+                keys[hole] = keys[next];
+                textHashes[hole] = textHashes[next];
+                referenced[hole] = referenced[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+
+        keys[hole] = FREE;
+        referenced[hole] = false;
+        size--;
+    }
+
+    private int home(int widgetId)
+    {
+        int h = widgetId * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+}
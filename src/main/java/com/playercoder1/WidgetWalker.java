@@ -0,0 +1,174 @@
+package com.playercoder1;
+
+import net.runelite.api.widgets.Widget;
+import net.runelite.api.widgets.WidgetUtil;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Iterative, resumable interface traversal. Widgets waiting to be visited sit on an explicit
+ * stack, and {@link #walk} stops once its time budget is spent, leaving the rest for the next
+ * call, so a huge interface (bank, collection log) is translated over a few ticks instead of
+ * in one long client-thread stall. Because it is a stack, whatever is pushed last, such as a
+ * group that was just opened, is walked before older pending work. A group queued component
+ * by component is pending until its walk starts, and queueing it again before that adds
+ * nothing.
+ */
+final class WidgetWalker
+{
+    interface Visitor
+    {
+        /**
+         * Visits a visible widget and returns whether its children should be walked too.
+         * {@code fullSweep} is set for widgets reached from a root queued by a full sweep,
+         * the only deep entries, rather than from a queued group.
+         */
+        boolean visit(Widget widget, boolean fullSweep);
+
+        /**
+         * Called for a visited widget whose subtree contains nested interfaces.
+         */
+        void hostsInterface(Widget widget);
+    }
+
+    // Looking at the clock on every widget would cost more than the text check itself.
+    private static final int CLOCK_CHECK_MASK = 15;
+
+    private Widget[] widgets = new Widget[256];
+    private boolean[] deep = new boolean[256];
+    // group of an entry queued through pushGroupComponent, or -1
+    private int[] groups = new int[256];
+    private int size;
+
+    private final BitSet pendingGroups = new BitSet();
+
+    /**
+     * Queues a widget. A deep entry walks its whole subtree (dynamic, static and nested
+     * children); a shallow one only the widget and its dynamic children, which is enough for
+     * the static components of a group since those are queued one by one.
+     */
+    void push(Widget widget, boolean walkSubtree)
+    {
+        push(widget, walkSubtree, -1);
+    }
+
+    /**
+     * Queues a static component of {@code groupId} shallowly and marks the group pending.
+     */
+    void pushGroupComponent(int groupId, Widget widget)
+    {
+        push(widget, false, groupId);
+        pendingGroups.set(groupId);
+    }
+
+    /**
+     * Whether components of {@code groupId} are queued and none of them was visited yet.
+     */
+    boolean isGroupPending(int groupId)
+    {
+        return pendingGroups.get(groupId);
+    }
+
+    void clear()
+    {
+        Arrays.fill(widgets, 0, size, null);
+        size = 0;
+        pendingGroups.clear();
+    }
+
+    void removeGroup(int groupId)
+    {
+        int kept = 0;
+        for (int i = 0; i < size; i++)
+        {
+            if (WidgetUtil.componentToInterface(widgets[i].getId()) != groupId)
+            {
+                widgets[kept] = widgets[i];
+                deep[kept] = deep[i];
+                groups[kept] = groups[i];
+                kept++;
+            }
+        }
+        Arrays.fill(widgets, kept, size, null);
+        size = kept;
+        pendingGroups.clear(groupId);
+    }
+
+    /**
+     * Visits queued widgets until the queue is empty or {@code budgetNanos} have passed.
+     * Returns true when everything queued has been visited.
+     */
+    boolean walk(long budgetNanos, Visitor visitor)
+    {
+        final long deadline = System.nanoTime() + budgetNanos;
+        int steps = 0;
+
+        while (size > 0)
+        {
+            if ((++steps & CLOCK_CHECK_MASK) == 0 && System.nanoTime() - deadline > 0)
+            {
+                return false;
+            }
+
+            size--;
+            final Widget widget = widgets[size];
+            final boolean walkSubtree = deep[size];
+            widgets[size] = null;
+            if (groups[size] >= 0)
+            {
+                // the walk of this group has started, a later change needs a new pass
+                pendingGroups.clear(groups[size]);
+            }
+
+            if (widget == null || widget.isHidden() || !visitor.visit(widget, walkSubtree))
+            {
+                continue;
+            }
+
+            if (walkSubtree)
+            {
+                final Widget[] nested = widget.getNestedChildren();
+                if (nested != null && nested.length > 0)
+                {
+                    visitor.hostsInterface(widget);
+                }
+                pushAll(nested, true);
+                pushAll(widget.getStaticChildren(), true);
+            }
+            pushAll(widget.getDynamicChildren(), walkSubtree);
+        }
+        return true;
+    }
+
+    private void push(Widget widget, boolean walkSubtree, int groupId)
+    {
+        if (size == widgets.length)
+        {
+            widgets = Arrays.copyOf(widgets, size * 2);
+            deep = Arrays.copyOf(deep, size * 2);
+            groups = Arrays.copyOf(groups, size * 2);
+        }
+        widgets[size] = widget;
+        deep[size] = walkSubtree;
+        groups[size] = groupId;
+        size++;
+    }
+
+    private void pushAll(Widget[] children, boolean walkSubtree)
+    {
+        if (children == null)
+        {
+            return;
+        }
+
+        // Reverse order, so children come off the stack in their natural order.
+        for (int i = children.length - 1; i >= 0; i--)
+        {
+            if (children[i] != null)
+            {
+                push(children[i], walkSubtree);
+            }
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.playercoder1;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class CompiledDictionaryTest
+{
+	private static final String LATIN1 = "english|french\n"
+			+ "Shark|Requin\n"
+			+ "Raw shark|Requin cru\n"
+			+ "Bronze  dagger|Dague en bronze\n"
+			+ "Café table|Table de café\n"
+			+ "Lobster|Homard\n"
+			+ "Lobster pot|Casier à homard\n"
+			+ "Bones|Os\n"
+			+ "Big bones|Gros os\n"
+			+ "Burnt bones|Os\n";
+
+	// "œ" and "ŵ" are outside Latin-1, so the keys have to be stored as UTF-16
+	private static final String UTF16 = "english|french\n"
+			+ "Œuf|Œuf\n"
+			+ "Ŵizard hat|Chapeau de sorcier\n"
+			+ "Egg|Œuf\n"
+			+ "Wizard|Sorcier\n";
+
+	private static final String DIALOG = "english|french\n"
+			+ "Hello there.|Bonjour.\n"
+			+ "You catch [a].|Vous attrapez [a].\n"
+			+ "You have [n] coin(s) left.|Il vous reste [n] pièce(s).\n"
+			+ "You [open/close] the door.|Vous [ouvrez/fermez] la porte.\n";
+
+	@Test
+	public void latin1DictionaryRoundTrips() throws IOException
+	{
+		assertRoundTrip(parse(LATIN1));
+	}
+
+	@Test
+	public void utf16DictionaryRoundTrips() throws IOException
+	{
+		assertRoundTrip(parse(UTF16));
+	}
+
+	@Test
+	public void equalValuesStayShared() throws IOException
+	{
+		TranslationDictionary read = roundTrip(parse(LATIN1), Collections.emptyList()).dictionary;
+
+		assertEquals("Os", read.get("bones"));
+		assertSame(read.get("bones"), read.get("burnt bones"));
+	}
+
+	@Test
+	public void dialogTemplatesRoundTrip() throws IOException
+	{
+		TranslationDictionary.Builder exact = new TranslationDictionary.Builder();
+		List<FrenchDialogTranslations.TemplateRule> templates = new ArrayList<>();
+		FrenchDialogTranslations.parseDialogFile(stream(DIALOG), exact, templates);
+
+		CompiledDictionary.Contents read = roundTrip(exact.build(), templates);
+
+		assertEquals("Bonjour.", read.dictionary.get("hello there."));
+		assertEquals(templates.size(), read.templates.size());
+		for (int i = 0; i < templates.size(); i++)
+		{
+			assertEquals(describe(templates.get(i).en), describe(read.templates.get(i).en));
+			assertEquals(describe(templates.get(i).fr), describe(read.templates.get(i).fr));
+		}
+	}
+
+	@Test
+	public void compilerOutputMatchesTheTextFiles() throws IOException
+	{
+		Path source = Files.createTempDirectory("dictionaries");
+		Path output = source.resolve("out");
+		try
+		{
+			Files.write(source.resolve("item_french.txt"), LATIN1.getBytes(StandardCharsets.UTF_8));
+			Files.write(source.resolve("npc_french.txt"), UTF16.getBytes(StandardCharsets.UTF_8));
+			Files.write(source.resolve("dialog_french.txt"), DIALOG.getBytes(StandardCharsets.UTF_8));
+
+			DictionaryCompiler.main(new String[]{source.toString(), output.toString()});
+
+			assertSameEntries(parse(LATIN1), read(output.resolve("item_french.dict")).dictionary);
+			assertSameEntries(parse(UTF16), read(output.resolve("npc_french.dict")).dictionary);
+			assertEquals(3, read(output.resolve("dialog_french.dict")).templates.size());
+		}
+		finally
+		{
+			for (File f : new File[]{output.toFile(), source.toFile()})
+			{
+				File[] files = f.listFiles();
+				for (File child : files != null ? files : new File[0])
+				{
+					child.delete();
+				}
+				f.delete();
+			}
+		}
+	}
+
+	private static void assertRoundTrip(TranslationDictionary dict) throws IOException
+	{
+		TranslationDictionary read = roundTrip(dict, Collections.emptyList()).dictionary;
+		assertSameEntries(dict, read);
+		assertNull(read.get("no such key"));
+		assertNull(read.get(TranslationFileLoader.normalize("No such key")));
+	}
+
+	private static void assertSameEntries(TranslationDictionary expected, TranslationDictionary actual)
+	{
+		assertEquals(expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); i++)
+		{
+			String key = expected.keyAt(i);
+			String value = expected.valueAt(i);
+			assertEquals(key, value, actual.get(key));
+
+			// the same key as the game would show it, normalized in place
+			String shown = " " + key.toUpperCase().replace(" ", "  ") + " ";
+			assertEquals(key, value, actual.get(TranslationFileLoader.normalize(shown)));
+		}
+	}
+
+	private static TranslationDictionary parse(String text) throws IOException
+	{
+		TranslationDictionary.Builder builder = new TranslationDictionary.Builder();
+		TranslationFileLoader.readPairs(stream(text), (en, fr) ->
+		{
+			builder.put(TranslationFileLoader.normKey(en), fr);
+			return true;
+		});
+		return builder.build();
+	}
+
+	private static CompiledDictionary.Contents roundTrip(TranslationDictionary dict,
+														 List<FrenchDialogTranslations.TemplateRule> templates) throws IOException
+	{
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		CompiledDictionary.write(out, dict, templates);
+		return CompiledDictionary.read(out.toByteArray(), new TranslationStrings());
+	}
+
+	private static CompiledDictionary.Contents read(Path file) throws IOException
+	{
+		return CompiledDictionary.read(Files.readAllBytes(file), new TranslationStrings());
+	}
+
+	private static String describe(FrenchDialogTranslations.ParseResult template)
+	{
+		StringBuilder sb = new StringBuilder();
+		for (FrenchDialogTranslations.TemplatePart p : template.parts)
+		{
+			sb.append(p.isLiteral ? "'" + p.text + "'" : "[" + p.text + "]");
+		}
+		return sb.toString();
+	}
+
+	private static ByteArrayInputStream stream(String text)
+	{
+		return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,275 @@
+package com.playercoder1;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Pins {@link DialogRuleMatcher} to the regex semantics the dialog rules had before it: each
+ * rule was one case-insensitive regex with lazy {@code (.+?)} placeholders, {@code (?:s)?}
+ * for "(s)" and {@code \s+} for whitespace, and the first rule in file order won.
+ */
+public class DialogRuleMatcherTest
+{
+	@Test
+	public void placeholdersCaptureLazily()
+	{
+		Rules rules = new Rules("You get [x] from [y].");
+
+		assertMatch(rules, "You get a a from b from c.", 0, "a a", "b from c");
+	}
+
+	@Test
+	public void optionalPluralMatchesBothForms()
+	{
+		Rules rules = new Rules("You have [n] coin(s) left.");
+
+		assertMatch(rules, "You have 1 coin left.", 0, "1");
+		assertMatch(rules, "You have 5 coins left.", 0, "5");
+		assertNull(rules.matcher.match("You have 5 coinss left."));
+	}
+
+	@Test
+	public void optionListsMatchOnlyTheirOptions()
+	{
+		Rules rules = new Rules("You [open/close] the [thing].");
+
+		assertMatch(rules, "You open the door.", 0, "open", "door");
+		assertMatch(rules, "You CLOSE the gate.", 0, "CLOSE", "gate");
+		assertNull(rules.matcher.match("You kick the door."));
+	}
+
+	@Test
+	public void firstRuleWins()
+	{
+		assertMatch(new Rules("You catch [a].", "You catch some [a]."), "You catch some shrimps.", 0, "some shrimps");
+		assertMatch(new Rules("You catch some [a].", "You catch [a]."), "You catch some shrimps.", 0, "shrimps");
+		assertMatch(new Rules("You catch some [a].", "You catch [a]."), "You catch a trout.", 1, "a trout");
+	}
+
+	@Test
+	public void rulesMayStartWithAPlaceholder()
+	{
+		Rules rules = new Rules("Welcome to [place].", "[name] says hello.");
+
+		assertMatch(rules, "Hans says hello.", 1, "Hans");
+		assertMatch(rules, "The Duke of Lumbridge says hello.", 1, "The Duke of Lumbridge");
+	}
+
+	@Test
+	public void caseAndWhitespaceRunsAreIgnored()
+	{
+		Rules rules = new Rules("You catch   some [fish].");
+
+		assertMatch(rules, "YOU CATCH SOME  Raw shrimps.", 0, "Raw shrimps");
+		assertMatch(rules, "you\tcatch some Raw shrimps.", 0, "Raw shrimps");
+	}
+
+	@Test
+	public void wholeTextMustMatch()
+	{
+		Rules rules = new Rules("You catch [a].");
+
+		assertNull(rules.matcher.match("You catch a trout. Nice!"));
+		assertNull(rules.matcher.match("Oh, you catch a trout."));
+		assertNull(rules.matcher.match("You catch ."));
+	}
+
+	@Test
+	public void randomTextMatchesLikeTheRegexRules()
+	{
+		Rules rules = new Rules(
+				"You catch [a].",
+				"You catch some [a].",
+				"You [open/close] the [thing].",
+				"[name] says [what].",
+				"You have [n] coin(s) left.",
+				"You get [x] from [y].",
+				"The [a] is [b/c] of [d](s).",
+				"[a] [b] [c].");
+
+		String[] words = {"You", "you", "catch", "some", "a", "the", "open", "close", "says", "have",
+				"coin", "coins", "left", "get", "from", "of", "is", "b", "c", "cs", "The", "shrimps"};
+		Random random = new Random(20261018);
+
+		// Single spaces only: the matcher reads a whitespace run as one symbol, so unlike the
+		// regexes it never lets a placeholder capture part of a run.
+		int matched = 0;
+		for (int i = 0; i < 50_000; i++)
+		{
+			StringBuilder text = new StringBuilder();
+			int n = 1 + random.nextInt(7);
+			for (int w = 0; w < n; w++)
+			{
+				if (w > 0)
+				{
+					text.append(' ');
+				}
+				text.append(words[random.nextInt(words.length)]);
+			}
+			if (random.nextBoolean())
+			{
+				text.append('.');
+			}
+
+			matched += compare(rules, text.toString()) ? 1 : 0;
+		}
+
+		// the word pool is built so that a fair share of the texts match some rule
+		assertTrue(matched > 1000);
+	}
+
+	private static boolean compare(Rules rules, String text)
+	{
+		int expectedRule = -1;
+		Matcher expected = null;
+		for (int r = 0; r < rules.patterns.size(); r++)
+		{
+			Matcher m = rules.patterns.get(r).matcher(text);
+			if (m.matches())
+			{
+				expectedRule = r;
+				expected = m;
+				break;
+			}
+		}
+
+		DialogRuleMatcher.Match actual = rules.matcher.match(text);
+		if (expected == null)
+		{
+			assertNull(text, actual);
+			return false;
+		}
+
+		assertNotNull(text, actual);
+		assertEquals(text, expectedRule, actual.rule);
+		for (int g = 1; g <= expected.groupCount(); g++)
+		{
+			assertEquals(text, expected.group(g), text.substring(actual.start(g - 1), actual.end(g - 1)));
+		}
+		return true;
+	}
+
+	private static void assertMatch(Rules rules, String text, int rule, String... captures)
+	{
+		DialogRuleMatcher.Match m = rules.matcher.match(text);
+		assertNotNull(text, m);
+		assertEquals(text, rule, m.rule);
+		for (int i = 0; i < captures.length; i++)
+		{
+			assertEquals(text, captures[i], text.substring(m.start(i), m.end(i)));
+		}
+
+		// and the old regex rules agree
+		compare(rules, text);
+	}
+
+	/**
+	 * The same templates, compiled both into one matcher and into one regex per rule.
+	 */
+	private static final class Rules
+	{
+		final DialogRuleMatcher matcher;
+		final List<Pattern> patterns = new ArrayList<>();
+
+		Rules(String... templates)
+		{
+			DialogRuleMatcher.Builder builder = new DialogRuleMatcher.Builder();
+			for (String template : templates)
+			{
+				StringBuilder regex = new StringBuilder("^");
+				builder.beginRule();
+
+				int i = 0;
+				while (i < template.length())
+				{
+					int open = template.indexOf('[', i);
+					String literal = template.substring(i, open == -1 ? template.length() : open);
+					if (!literal.isEmpty())
+					{
+						builder.literal(literal);
+						regex.append(literalRegex(literal));
+					}
+					if (open == -1)
+					{
+						break;
+					}
+
+					int close = template.indexOf(']', open);
+					String token = template.substring(open + 1, close);
+					if (token.contains("/"))
+					{
+						List<String> options = Arrays.asList(token.split("/"));
+						builder.option(options);
+						StringBuilder group = new StringBuilder("(");
+						for (String o : options)
+						{
+							group.append(group.length() > 1 ? "|" : "").append(Pattern.quote(o));
+						}
+						regex.append(group).append(')');
+					}
+					else
+					{
+						builder.variable();
+						regex.append("(.+?)");
+					}
+					i = close + 1;
+				}
+
+				builder.endRule();
+				patterns.add(Pattern.compile(regex.append('$').toString(), Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE));
+			}
+			matcher = builder.build();
+		}
+
+		private static String literalRegex(String literal)
+		{
+			StringBuilder re = new StringBuilder();
+			StringBuilder chunk = new StringBuilder();
+			int i = 0;
+			while (i < literal.length())
+			{
+				if (literal.startsWith("(s)", i) || Character.isWhitespace(literal.charAt(i)))
+				{
+					if (chunk.length() > 0)
+					{
+						re.append(Pattern.quote(chunk.toString()));
+						chunk.setLength(0);
+					}
+
+					if (literal.charAt(i) == '(')
+					{
+						re.append("(?:s)?");
+						i += 3;
+					}
+					else
+					{
+						while (i < literal.length() && Character.isWhitespace(literal.charAt(i)))
+						{
+							i++;
+						}
+						re.append("\\s+");
+					}
+					continue;
+				}
+
+				chunk.append(literal.charAt(i++));
+			}
+			if (chunk.length() > 0)
+			{
+				re.append(Pattern.quote(chunk.toString()));
+			}
+			return re.toString();
+		}
+	}
+}
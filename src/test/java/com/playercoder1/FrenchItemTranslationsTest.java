@@ -0,0 +1,37 @@
+package com.playercoder1;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class FrenchItemTranslationsTest
+{
+	@BeforeClass
+	public static void load()
+	{
+		FrenchItemTranslations.init(new TranslationStrings());
+	}
+
+	@Test
+	public void unchargedMarkerIsTranslated()
+	{
+		assertEquals("Trident des mers (déchargé)", FrenchItemTranslations.translateItemName("Trident of the seas (uncharged)"));
+		assertEquals("Trident des mers (déchargé)", FrenchItemTranslations.translateItemName("Trident of the seas (Uncharged)"));
+		assertEquals("Sarbacane toxique(déchargé)", FrenchItemTranslations.translateItemName("Toxic blowpipe(uncharged)"));
+	}
+
+	@Test
+	public void otherMarkersAreKept()
+	{
+		assertEquals("Trident des mers (e)", FrenchItemTranslations.translateItemName("Trident of the seas (e)"));
+		assertEquals("Sarbacane toxique (4)", FrenchItemTranslations.translateItemName("Toxic blowpipe (4)"));
+	}
+
+	@Test
+	public void unknownBaseIsNotTranslated()
+	{
+		assertNull(FrenchItemTranslations.translateItemName("Not an item (uncharged)"));
+	}
+}
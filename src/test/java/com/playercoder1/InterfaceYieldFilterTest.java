@@ -0,0 +1,58 @@
+package com.playercoder1;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class InterfaceYieldFilterTest
+{
+	private static final int GROUP = 160;
+
+	@Test
+	public void groupTurnsColdAfterFruitlessSweeps()
+	{
+		InterfaceYieldFilter filter = new InterfaceYieldFilter();
+		sweeps(filter, InterfaceYieldFilter.COLD_AFTER_SWEEPS);
+
+		assertTrue(filter.skip(GROUP, true));
+	}
+
+	@Test
+	public void groupWalksDoNotCountAsSweeps()
+	{
+		InterfaceYieldFilter filter = new InterfaceYieldFilter();
+		for (int i = 0; i < InterfaceYieldFilter.COLD_AFTER_SWEEPS; i++)
+		{
+			assertFalse(filter.skip(GROUP, false));
+			filter.sweepFinished();
+		}
+
+		assertFalse(filter.skip(GROUP, true));
+	}
+
+	@Test
+	public void redrawWarmsAColdGroup()
+	{
+		InterfaceYieldFilter filter = new InterfaceYieldFilter();
+		assertFalse(filter.redrawn(GROUP));
+
+		sweeps(filter, InterfaceYieldFilter.COLD_AFTER_SWEEPS);
+		assertTrue(filter.redrawn(GROUP));
+		assertFalse(filter.skip(GROUP, false));
+		assertFalse(filter.redrawn(GROUP));
+
+		// and it has to go fruitless for as many sweeps again
+		sweeps(filter, InterfaceYieldFilter.COLD_AFTER_SWEEPS - 1);
+		assertFalse(filter.skip(GROUP, true));
+	}
+
+	private static void sweeps(InterfaceYieldFilter filter, int count)
+	{
+		for (int i = 0; i < count; i++)
+		{
+			assertFalse(filter.skip(GROUP, true));
+			filter.sweepFinished();
+		}
+	}
+}
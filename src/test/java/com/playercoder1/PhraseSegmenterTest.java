@@ -0,0 +1,90 @@
+package com.playercoder1;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+
+public class PhraseSegmenterTest
+{
+	private PhraseSegmenter segmenter;
+
+	@Before
+	public void setUp()
+	{
+		TranslationDictionary items = new TranslationDictionary.Builder()
+				.put("key", "Clé")
+				.put("logs", "Bûches")
+				.put("bronze pickaxe", "Pioche en bronze")
+				.put("bronze dagger", "Dague en bronze")
+				.build();
+		TranslationDictionary npcs = new TranslationDictionary.Builder()
+				.put("man", "Homme")
+				.put("goblin", "Gobelin")
+				.put("guard", "Garde")
+				.put("king roald", "Roi Roald")
+				.build();
+		segmenter = PhraseSegmenter.of(npcs, items);
+	}
+
+	@Test
+	public void oneWordKeysLeaveSentencesAlone()
+	{
+		assertNull(segmenter.translate("Key bindings", true, true));
+		assertNull(segmenter.translate("key bindings", true, true));
+		assertNull(segmenter.translate("Chop down the logs", true, true));
+		assertNull(segmenter.translate("The man and the guard", true, true));
+		assertNull(segmenter.translate("<col=ff9040>Key bindings</col>", true, true));
+	}
+
+	@Test
+	public void oneWordKeysMatchAWholePhrase()
+	{
+		assertEquals("Clé", segmenter.translate("Key", true, true));
+		assertEquals("Clé.", segmenter.translate("Key.", true, true));
+		assertEquals("<col=ff9040>Bûches</col>", segmenter.translate("<col=ff9040>Logs</col>", true, true));
+		assertEquals("Use <col=ff9040>Clé</col> on the door",
+				segmenter.translate("Use <col=ff9040>Key</col> on the door", true, true));
+		assertEquals("Garde", segmenter.translate("guard", true, false));
+		assertEquals("Level 12: Gobelin", segmenter.translate("Level 12: Goblin", true, true));
+	}
+
+	@Test
+	public void multiWordKeysMatchInsideSentences()
+	{
+		assertEquals("You need a Pioche en bronze to mine this rock.",
+				segmenter.translate("You need a Bronze pickaxe to mine this rock.", true, true));
+		assertEquals("Dague en bronze x 5", segmenter.translate("Bronze dagger x 5", true, true));
+		assertEquals("Talk to Roi Roald, then the guard.",
+				segmenter.translate("Talk to King Roald, then the guard.", true, true));
+		assertEquals("Pioche en bronze", segmenter.translate("Bronze<br>pickaxe", true, true));
+		assertEquals("Pioche en bronze", segmenter.translate("Bronze\u00A0pickaxe", true, true));
+	}
+
+	@Test
+	public void disabledCategoriesAreNotTranslated()
+	{
+		assertNull(segmenter.translate("Talk to King Roald", false, true));
+		assertNull(segmenter.translate("Bronze dagger x 5", true, false));
+	}
+
+	@Test
+	public void fingerprintIgnoresColoursLineBreaksAndSpacing()
+	{
+		long plain = segmenter.fingerprint("Key bindings");
+		assertEquals(plain, segmenter.fingerprint("<col=ff9040>Key bindings</col>"));
+		assertEquals(plain, segmenter.fingerprint("KEY<br>bindings"));
+		assertEquals(plain, segmenter.fingerprint("  Key\u00A0 bindings "));
+	}
+
+	@Test
+	public void fingerprintKeepsPhraseBreaks()
+	{
+		// translated differently, so they must not share a miss
+		assertNull(segmenter.translate("Use Key on it", true, true));
+		assertEquals("Use <col=ff9040>Clé</col> on it", segmenter.translate("Use <col=ff9040>Key</col> on it", true, true));
+		assertNotEquals(segmenter.fingerprint("Use Key on it"), segmenter.fingerprint("Use <col=ff9040>Key</col> on it"));
+	}
+}
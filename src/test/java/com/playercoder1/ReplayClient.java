@@ -0,0 +1,537 @@
+package com.playercoder1;
+
+import net.runelite.api.Client;
+import net.runelite.api.GameState;
+import net.runelite.api.ItemComposition;
+import net.runelite.api.MenuEntry;
+import net.runelite.api.NPC;
+import net.runelite.api.NodeCache;
+import net.runelite.api.widgets.Widget;
+import net.runelite.api.widgets.WidgetUtil;
+import net.runelite.client.callback.ClientThread;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Just enough of the game client for the plugin's handlers to run headless: widget groups
+ * with static and dynamic children, menu entries, NPCs and item compositions, all backed by
+ * plain objects behind {@link Proxy} stubs. Methods the plugin does not use answer with
+ * zero, false or null.
+ */
+final class ReplayClient
+{
+	static final class WidgetNode
+	{
+		final int group;
+		final int child;
+		final int index;
+		final WidgetNode parent;
+		final List<WidgetNode> dynamicChildren = new ArrayList<>();
+		final Widget proxy;
+
+		String text = "";
+		String originalText = "";
+		boolean hidden;
+
+		WidgetNode(int group, int child, int index, WidgetNode parent)
+		{
+			this.group = group;
+			this.child = child;
+			this.index = index;
+			this.parent = parent;
+			this.proxy = stub(Widget.class, this::invoke);
+		}
+
+		private Object invoke(Method method, Object[] args)
+		{
+			switch (method.getName())
+			{
+				case "getId":
+					return WidgetUtil.packComponentId(group, child);
+				case "getParentId":
+					return parent != null ? WidgetUtil.packComponentId(parent.group, parent.child) : -1;
+				case "getParent":
+					return parent != null ? parent.proxy : null;
+				case "getIndex":
+					return index;
+				case "getText":
+					return text;
+				case "setText":
+					text = (String) args[0];
+					return proxy;
+				case "isHidden":
+					return hidden || (parent != null && parent.hidden);
+				case "isSelfHidden":
+					return hidden;
+				case "getChildren":
+				case "getDynamicChildren":
+					return toArray(dynamicChildren);
+				case "getChild":
+				{
+					int i = (Integer) args[0];
+					return i >= 0 && i < dynamicChildren.size() ? dynamicChildren.get(i).proxy : null;
+				}
+				case "getStaticChildren":
+				case "getNestedChildren":
+					return new Widget[0];
+				case "getItemId":
+					return -1;
+				case "getName":
+					return "";
+				default:
+					return defaultValue(method.getReturnType());
+			}
+		}
+	}
+
+	static final class MenuRow
+	{
+		String option;
+		String target;
+		final int identifier;
+		final NPC npc;
+		final int itemId;
+		final MenuEntry proxy;
+
+		MenuRow(String option, String target, int identifier, NPC npc, int itemId)
+		{
+			this.option = option;
+			this.target = target;
+			this.identifier = identifier;
+			this.npc = npc;
+			this.itemId = itemId;
+			this.proxy = stub(MenuEntry.class, this::invoke);
+		}
+
+		private Object invoke(Method method, Object[] args)
+		{
+			switch (method.getName())
+			{
+				case "getOption":
+					return option;
+				case "setOption":
+					option = (String) args[0];
+					return proxy;
+				case "getTarget":
+					return target;
+				case "setTarget":
+					target = (String) args[0];
+					return proxy;
+				case "getIdentifier":
+					return identifier;
+				case "getNpc":
+					return npc;
+				case "getItemId":
+					return itemId;
+				default:
+					return defaultValue(method.getReturnType());
+			}
+		}
+	}
+
+	static final class ItemRow
+	{
+		final int id;
+		String name;
+		final ItemComposition proxy;
+
+		ItemRow(int id, String name)
+		{
+			this.id = id;
+			this.name = name;
+			this.proxy = stub(ItemComposition.class, this::invoke);
+		}
+
+		private Object invoke(Method method, Object[] args)
+		{
+			switch (method.getName())
+			{
+				case "getId":
+					return id;
+				case "getName":
+					return name;
+				case "setName":
+					name = (String) args[0];
+					return null;
+				default:
+					return defaultValue(method.getReturnType());
+			}
+		}
+	}
+
+	/**
+	 * Runs {@code invoke} immediately and queues {@code invokeLater} until the next frame,
+	 * the same contract the real client thread gives the plugin.
+	 */
+	static final class ReplayClientThread extends ClientThread
+	{
+		private final Queue<BooleanSupplier> pending = new ConcurrentLinkedQueue<>();
+
+		@Override
+		public void invoke(Runnable r)
+		{
+			r.run();
+		}
+
+		@Override
+		public void invoke(BooleanSupplier r)
+		{
+			if (!r.getAsBoolean())
+			{
+				pending.add(r);
+			}
+		}
+
+		@Override
+		public void invokeLater(Runnable r)
+		{
+			pending.add(() ->
+			{
+				r.run();
+				return true;
+			});
+		}
+
+		@Override
+		public void invokeLater(BooleanSupplier r)
+		{
+			pending.add(r);
+		}
+
+		boolean hasPending()
+		{
+			return !pending.isEmpty();
+		}
+
+		void drain()
+		{
+			for (int n = pending.size(); n > 0; n--)
+			{
+				BooleanSupplier r = pending.poll();
+				if (r != null && !r.getAsBoolean())
+				{
+					pending.add(r);
+				}
+			}
+		}
+	}
+
+	final Client client = stub(Client.class, this::invoke);
+	final ReplayClientThread clientThread = new ReplayClientThread();
+
+	private final Map<Integer, List<WidgetNode>> groups = new LinkedHashMap<>();
+	private final Map<Integer, ItemRow> items = new HashMap<>();
+	private GameState gameState = GameState.LOGIN_SCREEN;
+	private int tickCount;
+	private int widgetTexts;
+	private int widgetsTranslated;
+
+	void reset()
+	{
+		groups.clear();
+		widgetTexts = 0;
+		widgetsTranslated = 0;
+		items.clear();
+		gameState = GameState.LOGIN_SCREEN;
+		tickCount = 0;
+	}
+
+	void setGameState(GameState state)
+	{
+		gameState = state;
+	}
+
+	void tick()
+	{
+		tickCount++;
+	}
+
+	void open(int group)
+	{
+		groups.computeIfAbsent(group, g -> new ArrayList<>());
+	}
+
+	void close(int group)
+	{
+		List<WidgetNode> children = groups.remove(group);
+		if (children != null)
+		{
+			tally(children);
+		}
+	}
+
+	WidgetNode widget(int group, int child, int index)
+	{
+		List<WidgetNode> children = groups.computeIfAbsent(group, g -> new ArrayList<>());
+		while (children.size() <= child)
+		{
+			children.add(new WidgetNode(group, children.size(), -1, null));
+		}
+
+		WidgetNode w = children.get(child);
+		if (index < 0)
+		{
+			return w;
+		}
+
+		while (w.dynamicChildren.size() <= index)
+		{
+			w.dynamicChildren.add(new WidgetNode(group, child, w.dynamicChildren.size(), w));
+		}
+		return w.dynamicChildren.get(index);
+	}
+
+	void setText(int group, int child, int index, String text)
+	{
+		WidgetNode w = widget(group, child, index);
+		w.text = text;
+		w.originalText = text;
+	}
+
+	ItemRow item(int id, String name)
+	{
+		ItemRow row = new ItemRow(id, name);
+		items.put(id, row);
+		return row;
+	}
+
+	NPC npc(int id, String name)
+	{
+		return stub(NPC.class, (method, args) ->
+		{
+			switch (method.getName())
+			{
+				case "getId":
+					return id;
+				case "getName":
+					return name;
+				default:
+					return defaultValue(method.getReturnType());
+			}
+		});
+	}
+
+	/**
+	 * Counts widgets with text in every group that was open during the replay, and of those
+	 * the ones whose text no longer matches what the trace last set, i.e. the ones the plugin
+	 * translated. Groups are counted when they close, or here if they are still open.
+	 */
+	int[] widgetTranslationCounts()
+	{
+		for (List<WidgetNode> children : groups.values())
+		{
+			tally(children);
+		}
+		groups.clear();
+		return new int[]{widgetTexts, widgetsTranslated};
+	}
+
+	private void tally(List<WidgetNode> children)
+	{
+		for (WidgetNode w : children)
+		{
+			for (int i = -1; i < w.dynamicChildren.size(); i++)
+			{
+				WidgetNode n = i < 0 ? w : w.dynamicChildren.get(i);
+				if (n.originalText.isEmpty())
+				{
+					continue;
+				}
+				widgetTexts++;
+				if (!n.text.equals(n.originalText))
+				{
+					widgetsTranslated++;
+				}
+			}
+		}
+	}
+
+	private Object invoke(Method method, Object[] args)
+	{
+		switch (method.getName())
+		{
+			case "getWidget":
+				if (args.length == 2)
+				{
+					return findWidget((Integer) args[0], (Integer) args[1]);
+				}
+				int component = (Integer) args[0];
+				return findWidget(WidgetUtil.componentToInterface(component), WidgetUtil.componentToId(component));
+			case "getWidgetRoots":
+			{
+				List<Widget> roots = new ArrayList<>();
+				for (List<WidgetNode> children : groups.values())
+				{
+					if (!children.isEmpty())
+					{
+						roots.add(children.get(0).proxy);
+					}
+				}
+				return roots.toArray(new Widget[0]);
+			}
+			case "getGameState":
+				return gameState;
+			case "getItemDefinition":
+			{
+				ItemRow row = items.get((Integer) args[0]);
+				return row != null ? row.proxy : item((Integer) args[0], "").proxy;
+			}
+			case "getItemCompositionCache":
+				return itemCompositionCache();
+			case "getTickCount":
+				return tickCount;
+			case "isClientThread":
+				return true;
+			default:
+				return defaultValue(method.getReturnType());
+		}
+	}
+
+	/**
+	 * Resetting it forgets every composition, as the client does before posting them again.
+	 */
+	private NodeCache itemCompositionCache()
+	{
+		return stub(NodeCache.class, (method, args) ->
+		{
+			if (method.getName().equals("reset"))
+			{
+				items.clear();
+			}
+			return defaultValue(method.getReturnType());
+		});
+	}
+
+	private Widget findWidget(int group, int child)
+	{
+		List<WidgetNode> children = groups.get(group);
+		if (children == null || child < 0 || child >= children.size())
+		{
+			return null;
+		}
+		return children.get(child).proxy;
+	}
+
+	/**
+	 * Implements a config interface with its declared defaults, except for the keys in
+	 * {@code overrides}, which are converted to the method's return type.
+	 */
+	static <T> T config(Class<T> type, Map<String, String> overrides)
+	{
+		return stub(type, (proxy, method, args) ->
+		{
+			String override = overrides.get(method.getName());
+			if (override != null)
+			{
+				Class<?> rt = method.getReturnType();
+				if (rt == boolean.class)
+				{
+					return Boolean.parseBoolean(override);
+				}
+				if (rt == int.class)
+				{
+					return Integer.parseInt(override);
+				}
+				return override;
+			}
+
+			if (method.isDefault())
+			{
+				return MethodHandles.privateLookupIn(type, MethodHandles.lookup())
+						.unreflectSpecial(method, type)
+						.bindTo(proxy)
+						.invokeWithArguments(args == null ? new Object[0] : args);
+			}
+			return defaultValue(method.getReturnType());
+		});
+	}
+
+	private interface StubMethod
+	{
+		Object invoke(Method method, Object[] args) throws Throwable;
+	}
+
+	private static <T> T stub(Class<T> type, StubMethod impl)
+	{
+		return stub(type, (InvocationHandler) (proxy, method, args) -> impl.invoke(method, args));
+	}
+
+	private static <T> T stub(Class<T> type, InvocationHandler impl)
+	{
+		InvocationHandler handler = (proxy, method, args) ->
+		{
+			if (method.getDeclaringClass() == Object.class)
+			{
+				switch (method.getName())
+				{
+					case "equals":
+						return proxy == args[0];
+					case "hashCode":
+						return System.identityHashCode(proxy);
+					default:
+						return type.getSimpleName() + "@" + Integer.toHexString(System.identityHashCode(proxy));
+				}
+			}
+			return impl.invoke(proxy, method, args);
+		};
+		return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler));
+	}
+
+	private static Widget[] toArray(List<WidgetNode> nodes)
+	{
+		Widget[] out = new Widget[nodes.size()];
+		for (int i = 0; i < out.length; i++)
+		{
+			out[i] = nodes.get(i).proxy;
+		}
+		return out;
+	}
+
+	private static Object defaultValue(Class<?> type)
+	{
+		if (!type.isPrimitive() || type == void.class)
+		{
+			return null;
+		}
+		if (type == boolean.class)
+		{
+			return false;
+		}
+		if (type == char.class)
+		{
+			return '\0';
+		}
+		if (type == long.class)
+		{
+			return 0L;
+		}
+		if (type == float.class)
+		{
+			return 0f;
+		}
+		if (type == double.class)
+		{
+			return 0d;
+		}
+		if (type == byte.class)
+		{
+			return (byte) 0;
+		}
+		if (type == short.class)
+		{
+			return (short) 0;
+		}
+		return 0;
+	}
+}
@@ -0,0 +1,405 @@
+package com.playercoder1;
+
+import net.runelite.api.Client;
+import net.runelite.api.GameState;
+import net.runelite.api.events.BeforeRender;
+import net.runelite.api.events.GameStateChanged;
+import net.runelite.api.events.GameTick;
+import net.runelite.api.events.MenuEntryAdded;
+import net.runelite.api.events.PostItemComposition;
+import net.runelite.api.events.ScriptPostFired;
+import net.runelite.api.events.WidgetClosed;
+import net.runelite.api.events.WidgetLoaded;
+import net.runelite.client.callback.ClientThread;
+import net.runelite.client.ui.overlay.OverlayManager;
+
+import javax.inject.Inject;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Replays a recorded {@link ReplayTrace} through the plugin's event handlers without a game
+ * client, then prints per-handler latency percentiles, bytes allocated per call and how much
+ * of the replayed text got translated. Run with {@code ./gradlew replay}, optionally passing
+ * {@code -Ptrace=<file>}, {@code -Piterations=<n>} and {@code -Pconfig=key=value,...}.
+ *
+ * Latencies and allocations include the cost of the {@link java.lang.reflect.Proxy} stubs
+ * the handlers call into, so compare runs against each other rather than against a live client.
+ */
+public class ReplayHarness
+{
+	private static final long LOAD_TIMEOUT_MS = 60_000;
+
+	private static final Map<Class<?>, Object> EVENTS = new HashMap<>();
+
+	private final ReplayTrace trace;
+	private final ReplayClient game = new ReplayClient();
+	private final FrenchTranslationPlugin plugin = new FrenchTranslationPlugin();
+	private final Map<String, HandlerStats> stats = new LinkedHashMap<>();
+	private final com.sun.management.ThreadMXBean threads =
+			(com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+	private final long allocationOverhead;
+
+	private boolean measuring;
+	private int menuEntries;
+	private int menuOptionHits;
+	private int menuTargetHits;
+	private int itemCompositions;
+	private int itemHits;
+	private int widgetTexts;
+	private int widgetHits;
+
+	private ReplayHarness(ReplayTrace trace, Map<String, String> config) throws ReflectiveOperationException
+	{
+		this.trace = trace;
+
+		// Overlays need a running client UI, so the metrics overlay stays off unless asked for.
+		config.putIfAbsent("showMetricsOverlay", "false");
+
+		Map<Class<?>, Object> injected = new HashMap<>();
+		injected.put(Client.class, game.client);
+		injected.put(ClientThread.class, game.clientThread);
+		injected.put(FrenchTranslationConfig.class, ReplayClient.config(FrenchTranslationConfig.class, config));
+		injected.put(OverlayManager.class, allocate(OverlayManager.class));
+		injected.put(TranslationMetricsOverlay.class, new TranslationMetricsOverlay(plugin));
+		injected.put(ScheduledExecutorService.class, Executors.newSingleThreadScheduledExecutor());
+		inject(plugin, injected);
+
+		threads.setThreadAllocatedMemoryEnabled(true);
+		allocationOverhead = measureAllocationOverhead();
+	}
+
+	public static void main(String[] args) throws Exception
+	{
+		if (args.length < 1)
+		{
+			System.err.println("usage: ReplayHarness <trace> [iterations] [warm-up iterations] [key=value ...]");
+			System.exit(2);
+		}
+
+		int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+		int warmup = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+		Map<String, String> config = new HashMap<>();
+		for (int i = 3; i < args.length; i++)
+		{
+			int eq = args[i].indexOf('=');
+			if (eq > 0)
+			{
+				config.put(args[i].substring(0, eq), args[i].substring(eq + 1));
+			}
+		}
+
+		ReplayTrace trace = ReplayTrace.read(Paths.get(args[0]));
+		ReplayHarness harness = new ReplayHarness(trace, config);
+		harness.run(iterations, warmup);
+		harness.report(args[0], iterations, warmup);
+		System.exit(0);
+	}
+
+	private void run(int iterations, int warmup) throws InterruptedException
+	{
+		long start = System.nanoTime();
+		plugin.startUp();
+
+		long deadline = System.currentTimeMillis() + LOAD_TIMEOUT_MS;
+		while (!game.clientThread.hasPending())
+		{
+			if (System.currentTimeMillis() > deadline)
+			{
+				throw new IllegalStateException("Dictionaries did not finish loading");
+			}
+			Thread.sleep(5);
+		}
+		game.clientThread.drain();
+		System.out.printf("Dictionaries loaded in %d ms%n", (System.nanoTime() - start) / 1_000_000);
+
+		for (int i = 0; i < warmup + iterations; i++)
+		{
+			measuring = i >= warmup;
+			replayOnce();
+		}
+
+		if (TranslationMetrics.enabled)
+		{
+			System.out.println(TranslationMetrics.report());
+		}
+
+		plugin.shutDown();
+		game.clientThread.drain();
+	}
+
+	private void replayOnce()
+	{
+		game.reset();
+
+		for (List<ReplayTrace.Event> tick : trace.ticks)
+		{
+			for (ReplayTrace.Event e : tick)
+			{
+				dispatch(e);
+			}
+
+			game.tick();
+			GameTick gameTick = event(GameTick.class);
+			timed("onGameTick", () -> plugin.onGameTick(gameTick));
+			frame();
+		}
+
+		if (measuring)
+		{
+			int[] counts = game.widgetTranslationCounts();
+			widgetTexts += counts[0];
+			widgetHits += counts[1];
+		}
+	}
+
+	private void dispatch(ReplayTrace.Event e)
+	{
+		switch (e.type)
+		{
+			case STATE:
+			{
+				GameState state = GameState.valueOf(e.text);
+				game.setGameState(state);
+				GameStateChanged ev = new GameStateChanged();
+				ev.setGameState(state);
+				timed("onGameStateChanged", () -> plugin.onGameStateChanged(ev));
+				break;
+			}
+			case OPEN:
+			{
+				game.open(e.group);
+				WidgetLoaded ev = new WidgetLoaded();
+				ev.setGroupId(e.group);
+				timed("onWidgetLoaded", () -> plugin.onWidgetLoaded(ev));
+				break;
+			}
+			case CLOSE:
+			{
+				game.close(e.group);
+				WidgetClosed ev = new WidgetClosed(e.group, 0, true);
+				timed("onWidgetClosed", () -> plugin.onWidgetClosed(ev));
+				break;
+			}
+			case TEXT:
+				game.setText(e.group, e.child, e.index, e.text);
+				break;
+			case HIDE:
+			case SHOW:
+				game.widget(e.group, e.child, e.index).hidden = e.type == ReplayTrace.Type.HIDE;
+				break;
+			case SCRIPT:
+			{
+				ScriptPostFired ev = new ScriptPostFired(Integer.parseInt(e.text), null);
+				timed("onScriptPostFired", () -> plugin.onScriptPostFired(ev));
+				break;
+			}
+			case MENU:
+			{
+				String[] f = e.fields;
+				int npcId = Integer.parseInt(f[3]);
+				ReplayClient.MenuRow row = new ReplayClient.MenuRow(f[0], f[1], Integer.parseInt(f[2]),
+						npcId >= 0 ? game.npc(npcId, f[4]) : null, Integer.parseInt(f[5]));
+				MenuEntryAdded ev = new MenuEntryAdded(row.proxy);
+				timed("onMenuEntryAdded", () -> plugin.onMenuEntryAdded(ev));
+
+				if (measuring)
+				{
+					menuEntries++;
+					menuOptionHits += row.option.equals(f[0]) ? 0 : 1;
+					menuTargetHits += row.target.equals(f[1]) ? 0 : 1;
+				}
+				break;
+			}
+			case ITEM:
+			{
+				ReplayClient.ItemRow row = game.item(Integer.parseInt(e.fields[0]), e.fields[1]);
+				PostItemComposition ev = new PostItemComposition();
+				ev.setItemComposition(row.proxy);
+				timed("onPostItemComposition", () -> plugin.onPostItemComposition(ev));
+
+				if (measuring)
+				{
+					itemCompositions++;
+					itemHits += row.name.equals(e.fields[1]) ? 0 : 1;
+				}
+				break;
+			}
+			case RENDER:
+				frame();
+				break;
+		}
+	}
+
+	private void frame()
+	{
+		game.clientThread.drain();
+		BeforeRender beforeRender = event(BeforeRender.class);
+		timed("onBeforeRender", () -> plugin.onBeforeRender(beforeRender));
+	}
+
+	private void timed(String handler, Runnable call)
+	{
+		final long thread = Thread.currentThread().getId();
+		final long bytesBefore = threads.getThreadAllocatedBytes(thread);
+		final long start = System.nanoTime();
+		call.run();
+		final long nanos = System.nanoTime() - start;
+		final long bytes = threads.getThreadAllocatedBytes(thread) - bytesBefore - allocationOverhead;
+
+		if (measuring)
+		{
+			stats.computeIfAbsent(handler, HandlerStats::new).record(nanos, Math.max(0, bytes));
+		}
+	}
+
+	private long measureAllocationOverhead()
+	{
+		final long thread = Thread.currentThread().getId();
+		long min = Long.MAX_VALUE;
+		for (int i = 0; i < 1_000; i++)
+		{
+			long before = threads.getThreadAllocatedBytes(thread);
+			min = Math.min(min, threads.getThreadAllocatedBytes(thread) - before);
+		}
+		return min;
+	}
+
+	private void report(String traceName, int iterations, int warmup)
+	{
+		System.out.printf("Replayed %s: %d ticks, %d events, %d iterations after %d warm-up%n%n",
+				traceName, trace.ticks.size(), trace.eventCount, iterations, warmup);
+
+		System.out.printf("%-22s %9s %9s %9s %9s %9s %12s%n",
+				"handler", "calls", "p50 us", "p90 us", "p99 us", "max us", "alloc B/call");
+		for (HandlerStats s : stats.values())
+		{
+			s.print();
+		}
+
+		System.out.println();
+		printRate("menu options", menuOptionHits, menuEntries);
+		printRate("menu targets", menuTargetHits, menuEntries);
+		printRate("item names", itemHits, itemCompositions);
+		printRate("widget texts", widgetHits, widgetTexts);
+	}
+
+	private static void printRate(String what, int hits, int total)
+	{
+		System.out.printf("%-14s translated %6d / %-6d (%.1f%%)%n",
+				what, hits, total, total == 0 ? 0.0 : hits * 100.0 / total);
+	}
+
+	private static void inject(Object target, Map<Class<?>, Object> values) throws ReflectiveOperationException
+	{
+		for (Field f : target.getClass().getDeclaredFields())
+		{
+			if (!f.isAnnotationPresent(Inject.class))
+			{
+				continue;
+			}
+
+			Object value = values.get(f.getType());
+			if (value == null)
+			{
+				throw new IllegalStateException("No replay stub for injected " + f.getType().getName());
+			}
+
+			f.setAccessible(true);
+			f.set(target, value);
+		}
+	}
+
+	private static Object allocate(Class<?> type) throws ReflectiveOperationException
+	{
+		// Constructs without running the constructor, for injected services the replay never calls.
+		Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+		Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+		theUnsafe.setAccessible(true);
+		Object unsafe = theUnsafe.get(null);
+		return unsafeClass.getMethod("allocateInstance", Class.class).invoke(unsafe, type);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> T event(Class<T> type)
+	{
+		return (T) EVENTS.computeIfAbsent(type, t ->
+		{
+			try
+			{
+				try
+				{
+					return t.getField("INSTANCE").get(null);
+				}
+				catch (NoSuchFieldException e)
+				{
+					Constructor<?> c = t.getDeclaredConstructor();
+					c.setAccessible(true);
+					return c.newInstance();
+				}
+			}
+			catch (ReflectiveOperationException e)
+			{
+				throw new IllegalStateException("Cannot create " + t.getName(), e);
+			}
+		});
+	}
+
+	private static final class HandlerStats
+	{
+		private final String name;
+		private long[] nanos = new long[1024];
+		private long[] bytes = new long[1024];
+		private int count;
+
+		HandlerStats(String name)
+		{
+			this.name = name;
+		}
+
+		void record(long n, long b)
+		{
+			if (count == nanos.length)
+			{
+				nanos = Arrays.copyOf(nanos, count * 2);
+				bytes = Arrays.copyOf(bytes, count * 2);
+			}
+			nanos[count] = n;
+			bytes[count] = b;
+			count++;
+		}
+
+		void print()
+		{
+			long[] sorted = Arrays.copyOf(nanos, count);
+			Arrays.sort(sorted);
+
+			long totalBytes = 0;
+			for (int i = 0; i < count; i++)
+			{
+				totalBytes += bytes[i];
+			}
+
+			System.out.printf("%-22s %9d %9.1f %9.1f %9.1f %9.1f %12d%n",
+					name, count,
+					percentile(sorted, 0.50), percentile(sorted, 0.90), percentile(sorted, 0.99),
+					sorted[count - 1] / 1_000.0, totalBytes / count);
+		}
+
+		private static double percentile(long[] sorted, double p)
+		{
+			int i = (int) Math.ceil(p * sorted.length) - 1;
+			return sorted[Math.max(0, Math.min(sorted.length - 1, i))] / 1_000.0;
+		}
+	}
+}
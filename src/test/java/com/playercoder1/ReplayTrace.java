@@ -0,0 +1,164 @@
+package com.playercoder1;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A recorded session, one event per line, replayed by {@link ReplayHarness}.
+ *
+ * <pre>
+ * # comment
+ * state LOGGED_IN                        game state change
+ * open 149                               interface group loaded
+ * close 149                              interface group closed
+ * text 149:0[:3] Some &lt;col=ff9040&gt;text   widget (or dynamic child) text set by the client
+ * hide 149:0[:3] / show 149:0[:3]        widget visibility
+ * script 2512                            client script finished
+ * menu option|target|identifier|npcId|npcName|itemId
+ * item itemId|name                       item composition loaded
+ * render                                 one extra client frame
+ * tick                                   end of a game tick: GameTick, then one frame
+ * </pre>
+ *
+ * Events before a {@code tick} line happen during that tick, in file order.
+ */
+final class ReplayTrace
+{
+	enum Type
+	{
+		STATE, OPEN, CLOSE, TEXT, HIDE, SHOW, SCRIPT, MENU, ITEM, RENDER
+	}
+
+	static final class Event
+	{
+		final Type type;
+		final int group;
+		final int child;
+		final int index;
+		final String text;
+		final String[] fields;
+
+		Event(Type type, int group, int child, int index, String text, String[] fields)
+		{
+			this.type = type;
+			this.group = group;
+			this.child = child;
+			this.index = index;
+			this.text = text;
+			this.fields = fields;
+		}
+	}
+
+	final List<List<Event>> ticks;
+	final int eventCount;
+
+	private ReplayTrace(List<List<Event>> ticks, int eventCount)
+	{
+		this.ticks = ticks;
+		this.eventCount = eventCount;
+	}
+
+	static ReplayTrace read(Path file) throws IOException
+	{
+		List<List<Event>> ticks = new ArrayList<>();
+		List<Event> current = new ArrayList<>();
+		int events = 0;
+		int lineNo = 0;
+
+		try (BufferedReader br = Files.newBufferedReader(file, StandardCharsets.UTF_8))
+		{
+			String line;
+			while ((line = br.readLine()) != null)
+			{
+				lineNo++;
+				line = line.trim();
+				if (line.isEmpty() || line.startsWith("#"))
+				{
+					continue;
+				}
+
+				int sp = line.indexOf(' ');
+				String op = sp == -1 ? line : line.substring(0, sp);
+				String rest = sp == -1 ? "" : line.substring(sp + 1).trim();
+
+				if (op.equals("tick"))
+				{
+					ticks.add(Collections.unmodifiableList(current));
+					current = new ArrayList<>();
+					continue;
+				}
+
+				try
+				{
+					current.add(parse(op, rest));
+					events++;
+				}
+				catch (RuntimeException e)
+				{
+					throw new IOException(file + ":" + lineNo + ": " + e.getMessage(), e);
+				}
+			}
+		}
+
+		if (!current.isEmpty())
+		{
+			ticks.add(Collections.unmodifiableList(current));
+		}
+		return new ReplayTrace(Collections.unmodifiableList(ticks), events);
+	}
+
+	private static Event parse(String op, String rest)
+	{
+		switch (op)
+		{
+			case "state":
+				return new Event(Type.STATE, 0, 0, -1, rest, null);
+			case "open":
+				return new Event(Type.OPEN, Integer.parseInt(rest), 0, -1, null, null);
+			case "close":
+				return new Event(Type.CLOSE, Integer.parseInt(rest), 0, -1, null, null);
+			case "script":
+				return new Event(Type.SCRIPT, 0, 0, -1, rest, null);
+			case "render":
+				return new Event(Type.RENDER, 0, 0, -1, null, null);
+			case "menu":
+				return new Event(Type.MENU, 0, 0, -1, null, split(rest, 6));
+			case "item":
+				return new Event(Type.ITEM, 0, 0, -1, null, split(rest, 2));
+			case "text":
+			case "hide":
+			case "show":
+			{
+				int sp = rest.indexOf(' ');
+				String address = sp == -1 ? rest : rest.substring(0, sp);
+				String text = sp == -1 ? "" : rest.substring(sp + 1);
+
+				String[] parts = address.split(":");
+				int group = Integer.parseInt(parts[0]);
+				int child = Integer.parseInt(parts[1]);
+				int index = parts.length > 2 ? Integer.parseInt(parts[2]) : -1;
+
+				Type type = op.equals("text") ? Type.TEXT : op.equals("hide") ? Type.HIDE : Type.SHOW;
+				return new Event(type, group, child, index, text, null);
+			}
+			default:
+				throw new IllegalArgumentException("unknown event '" + op + "'");
+		}
+	}
+
+	private static String[] split(String s, int count)
+	{
+		String[] fields = s.split("\\|", -1);
+		if (fields.length != count)
+		{
+			throw new IllegalArgumentException("expected " + count + " fields, got " + fields.length);
+		}
+		return fields;
+	}
+}
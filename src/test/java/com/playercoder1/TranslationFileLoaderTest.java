@@ -0,0 +1,123 @@
+package com.playercoder1;
+
+import net.runelite.client.util.Text;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class TranslationFileLoaderTest
+{
+	@Test
+	public void unclosedTagIsPlainText()
+	{
+		for (String s : new String[]{"HP < 50", "<col=ff0000>HP</col> < 50", "<col=ff0000>a</col> <b", "a < b > c <"})
+		{
+			assertEquals(s, Text.removeTags(s), TranslationFileLoader.visibleText(s));
+		}
+		assertEquals("HP < 50", TranslationFileLoader.visibleText("<col=ff0000>HP</col> < 50"));
+		assertEquals("hp < 50", TranslationFileLoader.normKey("HP < 50"));
+		assertEquals("a <b", TranslationFileLoader.normKey("<col=ff0000>a</col> <b"));
+	}
+
+	@Test
+	public void lineBreaksBecomeSpaces()
+	{
+		assertEquals("Bronze pickaxe", TranslationFileLoader.visibleText("Bronze<br>pickaxe"));
+		assertEquals("bronze pickaxe", TranslationFileLoader.normKey("<col=ff9040>Bronze<br/>pickaxe</col>"));
+		assertEquals("bronze pickaxe", TranslationFileLoader.normKey("Bronze <br /> pickaxe"));
+	}
+
+	@Test
+	public void matchesRemoveTagsOnRandomText()
+	{
+		// no line breaks, which the loader turns into a space where removeTags drops them
+		String[] pieces = {"<", ">", "<col=ff9040>", "</col>", "<img=2>", "<x", "y>", "HP", " ", "  ",
+				"\u00A0", "\t", "Shark", "a", "50", "-", "<lt>", "<gt>"};
+		Random random = new Random(20261018);
+
+		for (int i = 0; i < 100_000; i++)
+		{
+			StringBuilder sb = new StringBuilder();
+			int n = random.nextInt(10);
+			for (int p = 0; p < n; p++)
+			{
+				sb.append(pieces[random.nextInt(pieces.length)]);
+			}
+			String s = sb.toString();
+
+			String visible = Text.removeTags(s).replace('\u00A0', ' ');
+			assertEquals(s, visible, TranslationFileLoader.visibleText(s));
+
+			String key = visible.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+			assertEquals(s, key, TranslationFileLoader.normKey(s));
+		}
+	}
+
+	@Test
+	public void parallelParseMatchesReadPairs() throws IOException
+	{
+		assertSameParse("\uFEFFenglish|french\nShark|Requin\n");
+		assertSameParse("english|french\r\nShark|Requin\r\nLobster | Homard \r\n");
+		assertSameParse("# comment\n\n# another\nEnglish|French\nShark|Requin\n");
+		assertSameParse("Shark|Requin\nenglish|french\nLobster|Homard\n");
+		assertSameParse("|Requin\nShark|\nShark\n | \n<col=ff0000></col>|Rien\na|b|c\nShark|Requin\n");
+		assertSameParse("");
+	}
+
+	@Test
+	public void duplicateKeyAcrossChunksKeepsTheLastValue() throws IOException
+	{
+		// long enough to be cut into several 64 KiB chunks, with the key repeated on both sides of each cut
+		StringBuilder text = new StringBuilder("\uFEFF# items\r\nenglish|french\r\n");
+		String last = null;
+		for (int i = 0; text.length() < 200 * 1024; i++)
+		{
+			text.append("Item ").append(i).append("|Objet ").append(i).append("\r\n");
+			if (i % 500 == 0)
+			{
+				last = "Requin " + i;
+				text.append("Shark|").append(last).append("\r\n");
+				text.append("broken line ").append(i).append("\r\n");
+			}
+		}
+
+		TranslationDictionary parallel = assertSameParse(text.toString());
+		assertEquals(last, parallel.get("shark"));
+		assertEquals(last, parallel.get(TranslationFileLoader.normalize("Shark")));
+	}
+
+	private static TranslationDictionary assertSameParse(String text) throws IOException
+	{
+		byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+
+		TranslationDictionary.Builder sequential = new TranslationDictionary.Builder();
+		int expected = TranslationFileLoader.readPairs(new ByteArrayInputStream(bytes), (en, fr) ->
+		{
+			String key = TranslationFileLoader.normKey(en);
+			if (key.isEmpty())
+			{
+				return false;
+			}
+			sequential.put(key, fr);
+			return true;
+		});
+
+		TranslationDictionary.Builder parallel = new TranslationDictionary.Builder();
+		assertEquals(text, expected, TranslationFileLoader.readPipeSeparated(new ByteArrayInputStream(bytes), parallel));
+
+		TranslationDictionary a = sequential.build();
+		TranslationDictionary b = parallel.build();
+		assertEquals(text, a.size(), b.size());
+		for (int i = 0; i < a.size(); i++)
+		{
+			assertEquals(a.keyAt(i), a.valueAt(i), b.get(a.keyAt(i)));
+		}
+		return b;
+	}
+}
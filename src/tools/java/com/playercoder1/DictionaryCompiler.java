@@ -0,0 +1,80 @@
+package com.playercoder1;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Build-time entry point (see the {@code compileDictionaries} Gradle task) that turns every
+ * {@code *_french.txt} resource into a pre-normalized {@link CompiledDictionary} next to it on
+ * the runtime classpath, so the client does not have to parse the text files on start-up.
+ * It lives in the {@code tools} source set and is not part of the plugin jar.
+ */
+@Slf4j
+public final class DictionaryCompiler
+{
+    private static final String SUFFIX = "_french.txt";
+    private static final String DIALOG_RESOURCE = "dialog_french.txt";
+
+    private DictionaryCompiler() {}
+
+    public static void main(String[] args) throws IOException
+    {
+        if (args.length != 2)
+        {
+            throw new IllegalArgumentException("usage: DictionaryCompiler <resource dir> <output dir>");
+        }
+
+        File sourceDir = new File(args[0]);
+        File outputDir = new File(args[1]);
+        if (!outputDir.isDirectory() && !outputDir.mkdirs())
+        {
+            throw new IOException("Could not create " + outputDir);
+        }
+
+        File[] sources = sourceDir.listFiles((dir, name) -> name.endsWith(SUFFIX));
+        if (sources == null)
+        {
+            throw new IOException("Not a directory: " + sourceDir);
+        }
+
+        for (File source : sources)
+        {
+            compile(source, new File(outputDir, TranslationFileLoader.compiledResourceName(source.getName())));
+        }
+    }
+
+    private static void compile(File source, File target) throws IOException
+    {
+        TranslationDictionary.Builder dict = new TranslationDictionary.Builder();
+        List<FrenchDialogTranslations.TemplateRule> templates = new ArrayList<>();
+
+        try (InputStream in = new FileInputStream(source))
+        {
+            if (source.getName().equals(DIALOG_RESOURCE))
+            {
+                FrenchDialogTranslations.parseDialogFile(in, dict, templates);
+            }
+            else
+            {
+                TranslationFileLoader.readPipeSeparated(in, dict);
+            }
+        }
+
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(target)))
+        {
+            CompiledDictionary.write(out, dict.build(), templates);
+        }
+
+        log.info("Compiled {}: {} entries, {} templates -> {}",
+                source.getName(), dict.size(), templates.size(), target.getName());
+    }
+}